@@ -1,8 +1,12 @@
 package abstract_components;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
 import game_objects.GameObject;
+import physics.PhysicsStore;
 
 /**
  * Movable is an abstract class that allows children to implement moving behavior
@@ -12,6 +16,9 @@ import game_objects.GameObject;
  * http://gameprogrammingpatterns.com/component.html
  *
  * Specifically, the idea of having an abstract class is helpful to define different types of children behavior later.
+ *
+ * Once attached to a game object, the speed lives in that object's PhysicsStore slot
+ * so the movement pass can read it without going through the component.
  * @author jeremypark
  *
  */
@@ -22,9 +29,12 @@ public abstract class Movable implements Serializable {
     private static final long serialVersionUID = 1L;
 
     // x speed
-    public int xSpeed;
+    protected int xSpeed;
     // y speed
-    public int ySpeed;
+    protected int ySpeed;
+
+    // slot in the physics store holding the speed, -1 if not attached
+    private transient int slot = -1;
 
     // move game object
     public abstract void move(GameObject obj);
@@ -35,12 +45,26 @@ public abstract class Movable implements Serializable {
     // go right
     public abstract void goRight();
 
+    /**
+     * Keep the speed in a physics store slot from now on
+     * @param slot of the game object this component moves
+     */
+    public void attach(int slot) {
+        this.slot = slot;
+        PhysicsStore.vx[slot] = xSpeed;
+        PhysicsStore.vy[slot] = ySpeed;
+    }
+
     /**
      * Set x speed
      * @param xSpeed to set to
      */
     public void setXSpeed(int xSpeed) {
-        this.xSpeed = xSpeed;
+        if (slot < 0) {
+            this.xSpeed = xSpeed;
+        } else {
+            PhysicsStore.vx[slot] = xSpeed;
+        }
     }
 
     /**
@@ -48,34 +72,71 @@ public abstract class Movable implements Serializable {
      * @param ySpeed to set to
      */
     public void setYSpeed(int ySpeed) {
-        this.ySpeed = ySpeed;
+        if (slot < 0) {
+            this.ySpeed = ySpeed;
+        } else {
+            PhysicsStore.vy[slot] = ySpeed;
+        }
+    }
+
+    /**
+     * Get x speed
+     * @return x speed
+     */
+    public int getXSpeed() {
+        return slot < 0 ? xSpeed : PhysicsStore.vx[slot];
+    }
+
+    /**
+     * Get y speed
+     * @return y speed
+     */
+    public int getYSpeed() {
+        return slot < 0 ? ySpeed : PhysicsStore.vy[slot];
     }
 
     /**
      * Speed up in x direction
      */
     public void increaseXSpeed() {
-        xSpeed++;
+        setXSpeed( getXSpeed() + 1 );
     }
 
     /**
      * Slow down in x direction
      */
     public void decreaseXSpeed() {
-        xSpeed--;
+        setXSpeed( getXSpeed() - 1 );
     }
 
     /**
      * Speed up in y direction
      */
     public void increaseYSpeed() {
-        ySpeed++;
+        setYSpeed( getYSpeed() + 1 );
     }
 
     /**
      * Slow down in x direction
      */
     public void decreaseYSpeed() {
-        ySpeed--;
+        setYSpeed( getYSpeed() - 1 );
+    }
+
+    /**
+     * Copy the speed out of the slot before it is sent over the network.
+     */
+    private void writeObject(ObjectOutputStream output) throws IOException {
+        xSpeed = getXSpeed();
+        ySpeed = getYSpeed();
+        output.defaultWriteObject();
+    }
+
+    /**
+     * A received component isn't attached to anything yet.
+     */
+    private void readObject(ObjectInputStream input) throws ClassNotFoundException, IOException {
+        input.defaultReadObject();
+        slot = -1;
     }
 }
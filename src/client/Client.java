@@ -1,9 +1,10 @@
 package client;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.net.Socket;
-import java.util.PriorityQueue;
 import java.util.concurrent.ArrayBlockingQueue;
 
 import display.Screen;
@@ -14,14 +15,23 @@ import events.EventManager;
 import events.ExitEvent;
 import events.KeyPressEvent;
 import events.NewPlayerEvent;
+import events.PingEvent;
+import events.PongEvent;
 import events.PositionUpdateEvent;
 import events.Replay;
+import events.SeekReplayEvent;
 import events.StartRecordingEvent;
 import events.StartReplayEvent;
 import game_objects.GameObject;
 import game_objects.GameObjectList;
+import replay.CompactReplayWriter;
+import replay.InstantReplay;
+import replay.ReplayFiles;
+import replay.ReplayPlayer;
+import replay.ReplayRecorder;
+import time.ClockSync;
 import time.LocalTimeline;
-import time.Timeline;
+import time.MonotonicTimeline;
 
 
 /**
@@ -62,6 +72,37 @@ public class Client implements Runnable, EventHandler {
     // flag for replaying
     private volatile boolean replaying = false;
 
+    // plays the replay back
+    private ReplayPlayer player = null;
+
+    // folder recordings are written to
+    private static final String REPLAY_DIRECTORY = "replays";
+
+    // if finished recordings are deflated when they are archived
+    private static final boolean COMPRESS_ARCHIVES = true;
+
+    // ticks the instant replay keeps (about 10 seconds), and updates a tick has room for until it grows
+    private static final int INSTANT_REPLAY_TICKS = 300;
+    private static final int INSTANT_REPLAY_UPDATES = 32;
+
+    // the last few seconds, always being recorded
+    private final InstantReplay instantReplay = new InstantReplay(INSTANT_REPLAY_TICKS, INSTANT_REPLAY_UPDATES);
+
+    // file instant replays are played from, made the first time
+    private File instantReplayFile = null;
+
+    // if the replay playing is an instant replay, which leaves the last recording alone
+    private boolean playingInstantReplay = false;
+
+    // how often to ask the server for the time, in milliseconds
+    private static final int PING_INTERVAL = 500;
+
+    // round trip time and offset to the server's clock
+    private static final ClockSync clockSync = new ClockSync();
+
+    // our copy of the server's clock, kept in step with clock sync
+    private static MonotonicTimeline serverClock = null;
+
     /**
      * Client class to handle client information
      * @param events queue
@@ -86,21 +127,31 @@ public class Client implements Runnable, EventHandler {
             ClientWorld.setGUID( guid );
 
             // get the local timeline
-            Timeline localTimeline = (LocalTimeline) input.readObject();
+            LocalTimeline localTimeline = (LocalTimeline) input.readObject();
             ClientWorld.setTimeline(localTimeline);
 
+            // the server's clock came with it
+            if (localTimeline.getAnchor() instanceof MonotonicTimeline) {
+                serverClock = (MonotonicTimeline) localTimeline.getAnchor();
+            }
+
             // register client with these events!
             EventManager.register( this, "POSITION" );
             EventManager.register( this, "START_RECORDING" );
             EventManager.register( this, "END_RECORDING" );
             EventManager.register( this, "START_REPLAY" );
             EventManager.register( this, "END_REPLAY" );
+            EventManager.register( this, "SEEK_REPLAY" );
+            EventManager.register( this, "INSTANT_REPLAY" );
             EventManager.register( this, "NEW_PLAYER" );
             EventManager.register( this, "EXIT" );
 
             // start the client thread to accept user input.
             (new Thread(this)).start();
 
+            // keep measuring the latency to the server
+            startPinging();
+
             // continuously send user input to the server
             while(true)
             {
@@ -108,7 +159,9 @@ public class Client implements Runnable, EventHandler {
                 KeyPressEvent update = eventQueue.take();
 
                 // send it out to the server
-                output.writeObject( update );
+                synchronized ( output ) {
+                    output.writeObject( update );
+                }
             }
         } catch (Exception e) {
             System.out.println(e.toString());
@@ -117,7 +170,9 @@ public class Client implements Runnable, EventHandler {
             // upon exit
             try {
                 KeyPressEvent update = new KeyPressEvent("QUIT", ClientWorld.getGUID());
-                output.writeObject( update );
+                synchronized ( output ) {
+                    output.writeObject( update );
+                }
                 input.close();
                 output.close();
                 s.close();
@@ -157,6 +212,10 @@ public class Client implements Runnable, EventHandler {
                     // remove the player
                     removePlayer(exit);
                 }
+                else if (event.type.equals( "PONG" )) {
+                    // the server told us the time
+                    synchronizeClock( (PongEvent) event, System.nanoTime() );
+                }
             }
             catch ( Exception e ) {
                 System.out.println( "I'M BREAKING" );
@@ -164,6 +223,45 @@ public class Client implements Runnable, EventHandler {
         }
     }
 
+    /**
+     * Send the server a ping every PING_INTERVAL on a daemon thread
+     */
+    private void startPinging () {
+        Thread pinger = new Thread(new Runnable() {
+            @Override
+            public void run () {
+                try {
+                    while ( true ) {
+                        synchronized ( output ) {
+                            output.writeObject( new PingEvent(System.nanoTime()) );
+                        }
+
+                        Thread.sleep( PING_INTERVAL );
+                    }
+                }
+                catch ( Exception e ) {
+                    // connection is gone
+                }
+            }
+        }, "ping");
+
+        pinger.setDaemon( true );
+        pinger.start();
+    }
+
+    /**
+     * Add a ping/pong to the clock sync and slew our copy of the server clock toward it (it never runs backwards)
+     * @param pong from the server
+     * @param receiveTime our clock when it came in
+     */
+    private void synchronizeClock (PongEvent pong, long receiveTime) {
+        clockSync.addSample( pong.getClientSendTime(), pong.getServerReceiveTime(), pong.getServerSendTime(), receiveTime );
+
+        if (serverClock != null) {
+            serverClock.synchronize( clockSync.toServerTime( System.nanoTime() ) );
+        }
+    }
+
     /**
      * Private helper method to properly add position update to
      * @param positionUpdate
@@ -180,13 +278,18 @@ public class Client implements Runnable, EventHandler {
             EventManager.addEvent( positionUpdate );
         }
 
+        // always keep the last few seconds
+        instantReplay.record( positionUpdate.getTimeStamp(), positionUpdate.getGUID(), positionUpdate.getX(), positionUpdate.getY() );
+
         // if you are recording
         if (recording) {
-            // stamp it with the replay timeline's time
-            PositionUpdateEvent newPositionUpdate = new PositionUpdateEvent(replay.getTimeline().getTime(), replay.getTimeline().getTime() + 1, positionUpdate.getX(), positionUpdate.getY(), positionUpdate.getGUID());
-
-            // add it to the replay queue
-            replay.getReplayQueue().add( newPositionUpdate );
+            // stamp it with the replay timeline's time, and write it to the recording
+            try {
+                replay.getRecorder().record( replay.getTimeline().getTime(), positionUpdate.getGUID(), positionUpdate.getX(), positionUpdate.getY() );
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+            }
         }
     }
 
@@ -250,6 +353,12 @@ public class Client implements Runnable, EventHandler {
             case "END_REPLAY":
                 endReplay(e);
                 break;
+            case "SEEK_REPLAY":
+                seekReplay(e);
+                break;
+            case "INSTANT_REPLAY":
+                instantReplay(e);
+                break;
             default:
                 System.out.println( "Invalid event type." );
         }
@@ -269,8 +378,8 @@ public class Client implements Runnable, EventHandler {
 
             // update position
             if (obj != null) {
-                obj.x = positionUpdate.getX();
-                obj.y = positionUpdate.getY();
+                obj.setX( positionUpdate.getX() );
+                obj.setY( positionUpdate.getY() );
             }
         }
     }
@@ -280,23 +389,32 @@ public class Client implements Runnable, EventHandler {
      * @param e position update event
      */
     public void startRecording(Event e) {
-        // set recording = true
-        if (!recording) {
-            recording = true;
-        }
+        // stop writing the last recording
+        recording = false;
+        closeRecording();
 
         // take the collision event
         StartRecordingEvent startRecording = (StartRecordingEvent) e;
 
         // create a new timeline
         LocalTimeline replayTimeline = new LocalTimeline();
-        replayTimeline.anchorTimeline(Screen.timeline);
+        replayTimeline.anchorTimeline(Screen.frameClock);
         replayTimeline.setTicSize( 1 );
 
-        // clear the event queue
-        PriorityQueue<Event> replayQueue = new PriorityQueue<Event>(1024);
+        // record to a new file
+        try {
+            File directory = new File(REPLAY_DIRECTORY);
+            directory.mkdirs();
+
+            ReplayRecorder recorder = new ReplayRecorder(new File(directory, "replay-" + System.currentTimeMillis() + ".rpl"));
+            replay = new Replay(replayTimeline, recorder);
 
-        replay = new Replay(replayTimeline, replayQueue);
+            // set recording = true
+            recording = true;
+        }
+        catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
     }
 
     /**
@@ -306,9 +424,62 @@ public class Client implements Runnable, EventHandler {
     public void endRecording(Event e) {
         if (recording) {
             recording = false;
+            closeRecording();
         }
     }
 
+    /**
+     * Finish writing the recording to its file, then archive it
+     */
+    private void closeRecording() {
+        if (replay != null) {
+            try {
+                replay.getRecorder().close();
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+
+            archive( replay );
+        }
+    }
+
+    /**
+     * Turn a finished recording into a compact replay on a background thread.
+     * The replay plays from the recording until the archive is done.
+     * @param finished replay whose recording is closed
+     */
+    private void archive(final Replay finished) {
+        final File recording = finished.getRecorder().getFile();
+
+        if (!recording.getName().endsWith( ".rpl" ) || !recording.getPath().equals( finished.getFile().getPath() )) {
+            return;
+        }
+
+        Thread archiver = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                String path = recording.getPath();
+                File archive = new File(path.substring( 0, path.length() - ".rpl".length() ) + ".rpz");
+
+                try {
+                    CompactReplayWriter.compact( recording, archive, COMPRESS_ARCHIVES );
+
+                    finished.setFile( archive );
+                    recording.delete();
+                }
+                catch (IOException e) {
+                    e.printStackTrace();
+                    archive.delete();
+                }
+            }
+        }, "replay-archiver");
+
+        // not a daemon, so quitting waits for the archive to be written
+        archiver.start();
+    }
+
     /**
      * Start the replay
      * @param e position update event
@@ -317,40 +488,64 @@ public class Client implements Runnable, EventHandler {
         // take the start replay event
         StartReplayEvent startReplay = (StartReplayEvent) e;
 
-        // add the replayed events to the queue
+        // stream the recording onto the event queue
         if (!replaying && replay != null) {
-            replaying = true;
-
-            long eventTime = EventManager.eventTimeline.getTime();
-            Event replayedEvent = null;
+            try {
+                player = new ReplayPlayer(ReplayFiles.open( replay.getFile() ));
+                replaying = true;
+                player.start();
+            }
+            catch (IOException ioe) {
+                ioe.printStackTrace();
+            }
+        }
 
-            while (!replay.getReplayQueue().isEmpty()) {
-                // take an event off the replay queue
-                replayedEvent = replay.getReplayQueue().remove();
+        // play at the replay's speed
+        Screen.timeline.setTimeScale( startReplay.getTimeScale() );
+    }
 
-                // remake the timestamp
-                replayedEvent.setTimeToHandle( replayedEvent.getTimeStamp() + eventTime);
+    /**
+     * Replay the last few seconds
+     * @param e instant replay event
+     */
+    public void instantReplay(Event e) {
+        if (replaying || recording) {
+            System.out.println( "Finish the replay or recording first." );
+            return;
+        }
 
-                // raise the event again!
-                EventManager.addEvent( replayedEvent );
+        try {
+            if (instantReplayFile == null) {
+                instantReplayFile = File.createTempFile( "instant-replay", ".rpl" );
+                instantReplayFile.deleteOnExit();
             }
 
-            // event to designate the restoration of the original tic size
-            EndReplayEvent endReplay = new EndReplayEvent(replayedEvent.getTimeStamp(), replayedEvent.getTimeToHandle());
-            EventManager.addEvent( endReplay );
-        }
+            // play it on its own, so the last recording can still be replayed afterwards
+            instantReplay.snapshot( instantReplayFile );
+            player = new ReplayPlayer(ReplayFiles.open( instantReplayFile ));
+            playingInstantReplay = true;
+            replaying = true;
+            player.start();
 
-        // set the tic size
-        Screen.timeline.setTicSize( startReplay.getTicSize() );
+            // play it at normal speed
+            Screen.timeline.setTimeScale( 1 );
+        }
+        catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
 
-        // make the timeline standard
-        Screen.timeline.normalSpeed();
+    /**
+     * Jump ahead or back in the replay, if it is archived
+     * @param e seek replay event
+     */
+    public void seekReplay(Event e) {
+        SeekReplayEvent seekReplay = (SeekReplayEvent) e;
 
-        // change timeline based on tic size
-        if (startReplay.getTicSize() == 17) {
-            Screen.timeline.doubleSpeed();
-        } else if (startReplay.getTicSize() == 66) {
-            Screen.timeline.halfSpeed();
+        if (replaying && player != null) {
+            if (!player.seek( player.getTick() + seekReplay.getTicks() )) {
+                System.out.println( "This replay can't seek until it is archived." );
+            }
         }
     }
 
@@ -362,12 +557,26 @@ public class Client implements Runnable, EventHandler {
         if (replaying) {
             EndReplayEvent endReplay = (EndReplayEvent) e;
 
-            // change the tic size back to original version
-            Screen.timeline.setTicSize( 33 );
-            Screen.timeline.normalSpeed();
+            // back to normal speed
+            Screen.timeline.setTimeScale( 1 );
+
+            player.stop();
+            player = null;
+
+            // a recording still going has nothing to write to now
+            if (recording) {
+                recording = false;
+                closeRecording();
+            }
 
             replaying = false;
-            replay = null;
+
+            // an instant replay didn't use the recording
+            if (!playingInstantReplay) {
+                replay = null;
+            }
+
+            playingInstantReplay = false;
         }
     }
 }
@@ -8,11 +8,15 @@ import display.Screen;
 import events.EndRecordingEvent;
 import events.Event;
 import events.EventManager;
+import events.InstantReplayEvent;
 import events.KeyPressEvent;
+import events.SeekReplayEvent;
 import events.StartRecordingEvent;
 import events.StartReplayEvent;
+import events.TimerService;
 import game_objects.GameObject;
 import processing.core.PApplet;
+import time.FrameClock;
 import time.Timeline;
 
 /**
@@ -36,6 +40,9 @@ public class ClientWorld extends Screen {
     // player's frame delta
     private static final int PLAYER_FRAME_DELTA = 1;
 
+    // ticks a replay jumps ahead or back (about 10 seconds)
+    private static final long SEEK_TICKS = 300;
+
     // start time
     private long startTime = 0;
 
@@ -67,7 +74,7 @@ public class ClientWorld extends Screen {
     public void draw() {
         // Calculate the time elapsed since the last game loop began.
         if (timeline != null) {
-            startTime = timeline.getTime();
+            startTime = frameClock.tick();
             elapsedTime = startTime - lastIterationTime;
             lastIterationTime = startTime;
         }
@@ -75,6 +82,9 @@ public class ClientWorld extends Screen {
         // handle the events
         EventManager.handleEvents();
 
+        // run timers whose tick has come
+        TimerService.advance();
+
         // draw
         if (timeline != null && !timeline.isPaused()) {
             drawBackground();
@@ -120,10 +130,11 @@ public class ClientWorld extends Screen {
         // start up the client's timeline
         timeline = tl;
         timeline.start();
+        frameClock = new FrameClock(timeline);
 
         // start up the event manager's timeline
         // a tic is a frame
-        EventManager.eventTimeline.anchorTimeline(timeline);
+        EventManager.eventTimeline.anchorTimeline(frameClock);
         EventManager.eventTimeline.setTicSize( 1 );
         EventManager.eventTimeline.start();
 
@@ -194,16 +205,47 @@ public class ClientWorld extends Screen {
             timeline.play();
         }
         else if (keyCode == 49) { // 0.5x speed
-            StartReplayEvent startReplay = new StartReplayEvent(EventManager.nextFrame(), 1, 66);
-            EventManager.addEvent( startReplay );
+            replayAt( 0.5 );
         }
         else if (keyCode == 50) { // 1.0x speed
-            StartReplayEvent startReplay = new StartReplayEvent(EventManager.nextFrame(), 1, 33);
-            EventManager.addEvent( startReplay );
+            replayAt( 1 );
         }
         else if (keyCode == 51) { // 2.0x speed
-            StartReplayEvent startReplay = new StartReplayEvent(EventManager.nextFrame(), 1, 17);
-            EventManager.addEvent( startReplay );
+            replayAt( 2 );
+        }
+        else if (keyCode == 93) { // ] twice as fast
+            replayAt( timeline.getTimeScale() * 2 );
+        }
+        else if (keyCode == 91) { // [ half as fast
+            replayAt( timeline.getTimeScale() / 2 );
         }
+        else if (keyCode == 44) { // , jump back
+            seekReplay( -SEEK_TICKS );
+        }
+        else if (keyCode == 46) { // . jump ahead
+            seekReplay( SEEK_TICKS );
+        }
+        else if (keyCode == 82) { // instant replay
+            InstantReplayEvent instantReplay = new InstantReplayEvent(EventManager.nextFrame(), EventManager.offset());
+            EventManager.addEvent( instantReplay );
+        }
+    }
+
+    /**
+     * Jump ahead or back in the replay
+     * @param ticks to jump, negative to go back
+     */
+    private void seekReplay(long ticks) {
+        SeekReplayEvent seekReplay = new SeekReplayEvent(EventManager.nextFrame(), 1, ticks);
+        EventManager.addEvent( seekReplay );
+    }
+
+    /**
+     * Start the replay, or change its speed if it is playing
+     * @param timeScale 1 for normal speed, 2 for double, and so on
+     */
+    private void replayAt(double timeScale) {
+        StartReplayEvent startReplay = new StartReplayEvent(EventManager.nextFrame(), 1, timeScale);
+        EventManager.addEvent( startReplay );
     }
 }
@@ -4,9 +4,10 @@ import java.io.Serializable;
 
 import abstract_components.Collidable;
 import events.CollisionEvent;
-import events.EventManager;
 import game_objects.Box;
 import game_objects.GameObject;
+import physics.PhysicsStore;
+import physics.PhysicsSystem;
 
 /**
  * CollisionComponent has defined behavior for the box to stop moving upon collisions.
@@ -24,44 +25,18 @@ public class CollisionComponent extends Collidable implements Serializable {
      *
      */
     private static final long serialVersionUID = 1L;
-    boolean collidingVertically = false;
-    boolean collidingHorizontally = false;
 
     /**
      * Collision detection between the user box and any potential obstacle
      *
      * Inspired by: https://happycoding.io/tutorials/processing/collision-detection
+     * The check itself now runs on the physics store, see PhysicsSystem.narrowphase.
      */
     public CollisionEvent checkCollision ( GameObject mvr, GameObject obstacle ) {
-        Box mover = (Box) mvr;
-
-        // boolean flag
-        CollisionEvent collision = null;
-
-        /**
-         * If moving vertically will cause collision
-         */
-        if (mover.y + mover.height + mover.getYSpeed() >= obstacle.y && mover.y + mover.getYSpeed() < obstacle.y + obstacle.height && mover.x + mover.width > obstacle.x && mover.x < obstacle.x + obstacle.width) {
-            mover.y = obstacle.y - mover.height;
-
-            //collideVertically(mover);
-
-            collision = new CollisionEvent(EventManager.nextFrame(), EventManager.offset(), mvr.getGUID(), "VERTICAL");
-            //Event collisionEvent = new Event(Screen.timeline.getTime(), Screen.offset);
-            collidingVertically = true;
-        }
-
-        /**
-         * If moving horizontally will cause collision
-         */
-        if (mover.x + mover.width + mover.getXSpeed() > obstacle.x && mover.x + mover.getXSpeed() < obstacle.x + obstacle.width && mover.y + mover.height > obstacle.y && mover.y < obstacle.y + obstacle.height) {
-            //collideHorizontally(mover);
-
-            collision = new CollisionEvent(EventManager.nextFrame(), EventManager.offset(), mvr.getGUID(), "HORIZONTAL");
-            collidingHorizontally = true;
-        }
+        int hit = PhysicsSystem.narrowphase( mvr.getSlot(), obstacle.getSlot() );
 
-        return collision;
+        // the event can be null if nothing was hit
+        return PhysicsSystem.toEvent( mvr.getGUID(), hit );
     }
 
     /**
@@ -69,9 +44,9 @@ public class CollisionComponent extends Collidable implements Serializable {
      */
     public void collideVertically(GameObject mvr) {
         Box mover = (Box) mvr;
-        if (collidingVertically) {
+        if (PhysicsStore.hasFlag( mover.getSlot(), PhysicsStore.COLLIDING_VERTICALLY )) {
             mover.setYSpeed( 0 );
-            collidingVertically = false;
+            PhysicsStore.clearFlag( mover.getSlot(), PhysicsStore.COLLIDING_VERTICALLY );
         }
     }
 
@@ -81,9 +56,9 @@ public class CollisionComponent extends Collidable implements Serializable {
     public void collideHorizontally(GameObject mvr) {
         Box mover = (Box) mvr;
 
-        if (collidingHorizontally) {
+        if (PhysicsStore.hasFlag( mover.getSlot(), PhysicsStore.COLLIDING_HORIZONTALLY )) {
             mover.setXSpeed( 0 );
-            collidingHorizontally = false;
+            PhysicsStore.clearFlag( mover.getSlot(), PhysicsStore.COLLIDING_HORIZONTALLY );
         }
     }
 }
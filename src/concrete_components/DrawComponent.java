@@ -57,6 +57,6 @@ public class DrawComponent extends Renderable implements Serializable {
         Screen tempScreen = Screen.getScreen();
         tempScreen.fill(color); //set color
         tempScreen.noStroke();  //no stroke
-        tempScreen.rect(obj.x, obj.y, obj.width, obj.height);  //make a rectangle
+        tempScreen.rect(obj.getDrawX(), obj.getDrawY(), obj.getWidth(), obj.getHeight());  //make a rectangle
     }
 }
@@ -5,7 +5,8 @@ import java.io.Serializable;
 import abstract_components.Movable;
 import display.Screen;
 import game_objects.GameObject;
-import scripting.ScriptManager;
+import scripting.BehaviourRegistry;
+import scripting.ScriptBatch;
 
 /**
  * MoveComponent allows the GameObject to move.
@@ -29,9 +30,12 @@ public class MoveComponent extends Movable implements Serializable {
     // default box speed
     private static final int DEFAULT_BOX_SPEED = 7;
 
+    // script that moves the moving platforms, unless the level data picks another behaviour
+    private static final String PLATFORM_SCRIPT = "src/scripting/move_platform.js";
+
     // upper and lower bounds for the moving platforms
     private int upper_bound = 150;
-    private int lower_bound = 450;
+    private int lower_bound = 500;
 
     /**
      * Set X speed
@@ -52,53 +56,54 @@ public class MoveComponent extends Movable implements Serializable {
             screen = Screen.getScreen();
         }
 
-        if (obj.x <= 0) {
-            obj.x = 0;
-        } else if (obj.x + obj.width>= screen.width) {
-            obj.x = screen.width - obj.width;
+        if (obj.getX() <= 0) {
+            obj.setX( 0 );
+        } else if (obj.getX() + obj.getWidth() >= screen.width) {
+            obj.setX( screen.width - obj.getWidth() );
         }
 
-        obj.x += xSpeed;
-        obj.y += ySpeed;
+        obj.setX( obj.getX() + getXSpeed() );
+        obj.setY( obj.getY() + getYSpeed() );
     }
 
     /**
      * Movement behavior for moving platforms.
      *
      * Scripted movements to change the bounds of the moving platforms.
+     * All platforms share one batch of their behaviour, which moves every one of them in a single call per frame.
+     * The behaviour is the platform script, or whatever the level data picks for this type of platform.
      *
      * @param obj platform to move
      */
-    public void platformMove (GameObject obj) {
-
-        /**
-         * Algorithm for loading, binding and executing taken from Dr. Roberts' ScriptIntegrationExample.java class.
-         */
+    public void joinPlatformBatch (GameObject obj) {
+        ScriptBatch batch = BehaviourRegistry.getBatch( obj.getClass().getSimpleName(), PLATFORM_SCRIPT );
 
-        // load the script for moving platforms
-        ScriptManager.loadScript("src/scripting/move_platform.js");
+        // platforms can stand still for a frame when scripting is over budget
+        batch.setCritical( false );
 
-        // bind arguments: platform, moveComponent, and the bounds
-        ScriptManager.bindArgument("obj", obj);
-        ScriptManager.bindArgument("moveComponent", this);
-        ScriptManager.bindArgument("upper_bound", upper_bound);
-        ScriptManager.bindArgument("lower_bound", lower_bound);
+        // the platform's position, speed and bounds go into the batch's arrays
+        batch.add( obj, this, upper_bound, lower_bound );
+    }
 
-        // execute platform movement script
-        ScriptManager.executeScript();
+    /**
+     * Stop moving a platform with the platform script
+     * @param obj platform to remove
+     */
+    public void leavePlatformBatch (GameObject obj) {
+        BehaviourRegistry.getBatch( obj.getClass().getSimpleName(), PLATFORM_SCRIPT ).remove( obj );
     }
 
     /**
      * Keyboard input to go left
      */
     public void goLeft() {
-        xSpeed = Math.abs( DEFAULT_BOX_SPEED ) * (-1);  //go left
+        setXSpeed( Math.abs( DEFAULT_BOX_SPEED ) * (-1) );  //go left
     }
 
     /**
      * Keyboard input to go right
      */
     public void goRight() {
-        xSpeed = Math.abs( DEFAULT_BOX_SPEED );  //go right
+        setXSpeed( Math.abs( DEFAULT_BOX_SPEED ) );  //go right
     }
 }
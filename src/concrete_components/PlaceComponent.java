@@ -4,6 +4,7 @@ import java.io.Serializable;
 
 import abstract_components.Placeable;
 import game_objects.GameObject;
+import physics.PhysicsStore;
 
 /**
  * PlaceComponent allows game objects to be placed at a certain coordinate.
@@ -29,7 +30,11 @@ public class PlaceComponent extends Placeable implements Serializable {
      * @param y coordinate
      */
     public void setLocation ( GameObject obj, int x, int y ) {
-        obj.x = x;
-        obj.y = y;
+        obj.setX( x );
+        obj.setY( y );
+
+        // placing is a jump, so don't draw the object sliding over from where it was
+        PhysicsStore.previousX[obj.getSlot()] = x;
+        PhysicsStore.previousY[obj.getSlot()] = y;
     }
 }
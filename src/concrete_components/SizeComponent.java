@@ -41,7 +41,7 @@ public class SizeComponent extends Sizeable implements Serializable {
      * @param obj game object
      */
     public void setDimensions (GameObject obj) {
-        obj.width = width;
-        obj.height = height;
+        obj.setWidth( width );
+        obj.setHeight( height );
     }
 }
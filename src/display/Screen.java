@@ -1,12 +1,20 @@
 package display;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 
 import events.EventManager;
+import events.TimerService;
 import game_objects.GameObject;
 import game_objects.GameObjectList;
 import game_objects.SpawnPoint;
+import physics.PhysicsSystem;
+import physics.PhysicsStore;
 import processing.core.PApplet;
+import scripting.BehaviourRegistry;
+import scripting.ScriptProfiler;
+import time.FixedTimestep;
+import time.FrameClock;
 import time.Timeline;
 
 /**
@@ -30,6 +38,9 @@ public class Screen extends PApplet {
     // timeline
     public static Timeline timeline = null;
 
+    // timeline read once per frame, for everything that asks for the time during the frame
+    public static FrameClock frameClock = null;
+
     // list of all the game objects in the system.
     public static GameObjectList gameObjects = new GameObjectList();
 
@@ -48,6 +59,21 @@ public class Screen extends PApplet {
     // for 30 FPS, the frame delta is around 33.
     public static final int FRAME_DELTA = 33;
 
+    // length of one simulation step in milliseconds; speeds are measured per step
+    public static final int SIMULATION_STEP = FRAME_DELTA;
+
+    // most simulation steps to run in one draw before giving up on catching up
+    public static final int MAX_STEPS_PER_FRAME = 5;
+
+    // runs the simulation at a fixed rate, no matter how often draw is called
+    protected FixedTimestep stepper = new FixedTimestep(SIMULATION_STEP, MAX_STEPS_PER_FRAME);
+
+    // how far between the last two simulation steps to draw objects (1 = at their latest position)
+    public static volatile float renderAlpha = 1;
+
+    // work other threads hand to the game loop (e.g. players joining and leaving), run at the start of the next step
+    private static ConcurrentLinkedQueue<Runnable> simulationTasks = new ConcurrentLinkedQueue<Runnable>();
+
     /**
      * Create the PApplet
      * Start up the server to accept clients
@@ -82,19 +108,33 @@ public class Screen extends PApplet {
      */
     public void draw() {
         // Calculate the time elapsed since the last game loop began.
-        long startTime = timeline.getTime();
+        // This is the only time the timeline is read this frame.
+        long startTime = frameClock.sample();
         long elapsedTime = startTime - lastIterationTime;
         lastIterationTime = startTime;
 
         drawBackground();
 
-        // dequeue all events
-        EventManager.handleEvents();
+        // run as many fixed steps as the time since the last frame covers
+        int steps = stepper.advance( startTime );
+
+        ScriptProfiler.beginFrame();
+
+        for (int step = 0; step < steps; step++) {
+            // event and timer time move one step at a time, so every step sees its own events come due
+            frameClock.stepTo( stepper.getStepTime( step, steps ) );
+            simulate();
+        }
+
+        ScriptProfiler.endFrame();
+
+        // draw part of the way between the last two steps
+        renderAlpha = stepper.getAlpha();
 
-        // draw all objects and update them!
+        // draw all objects
         for (int i = 0; i < gameObjects.size(); i++) {
             GameObject obj = gameObjects.get( i );
-            obj.update();
+            obj.draw();
         }
 
         // Frame Rate Governing: Sleep for the remainder of the frame.
@@ -107,6 +147,55 @@ public class Screen extends PApplet {
         }
     }
 
+    /**
+     * One fixed simulation step: handle events, update objects, then run physics.
+     */
+    protected void simulate() {
+        // add and remove game objects on this thread, so the physics store never grows under a step
+        runSimulationTasks();
+
+        // remember positions so drawing can interpolate
+        PhysicsStore.savePositions( PhysicsStore.count );
+
+        // dequeue all events
+        EventManager.handleEvents();
+
+        // run timers whose tick has come, scripts' frame waits too
+        TimerService.advance();
+
+        // update all objects!
+        for (int i = 0; i < gameObjects.size(); i++) {
+            GameObject obj = gameObjects.get( i );
+            obj.update();
+        }
+
+        // run behaviours that update many objects in one call
+        BehaviourRegistry.updateAll();
+
+        // move every box and check for collisions
+        PhysicsSystem.step( width );
+    }
+
+    /**
+     * Run a task on the game loop at the start of the next simulation step.
+     * Anything that makes or destroys game objects from another thread has to go through here.
+     * @param task to run
+     */
+    public static void runOnSimulation(Runnable task) {
+        simulationTasks.add( task );
+    }
+
+    /**
+     * Run every task handed to the game loop so far
+     */
+    protected static void runSimulationTasks() {
+        Runnable task;
+
+        while ((task = simulationTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
     /**
      * Draw the background
      */
@@ -67,6 +67,14 @@ public class Event implements Serializable, Comparable<Event>, Comparator<Event>
         return priority;
     }
 
+    /**
+     * Get the GUID of the game object this event is about
+     * @return GUID, or -1 if it isn't about one game object
+     */
+    public int getGUID() {
+        return -1;
+    }
+
     /**
      * We want to organize the priority queue based on lowest timestamp
      */
@@ -25,6 +25,8 @@ public class EventManager {
     private static ArrayList<EventHandler> endRecordingHandlers = new ArrayList<EventHandler>();
     private static ArrayList<EventHandler> startReplayHandlers = new ArrayList<EventHandler>();
     private static ArrayList<EventHandler> endReplayHandlers = new ArrayList<EventHandler>();
+    private static ArrayList<EventHandler> seekReplayHandlers = new ArrayList<EventHandler>();
+    private static ArrayList<EventHandler> instantReplayHandlers = new ArrayList<EventHandler>();
     private static ArrayList<EventHandler> newPlayerHandlers = new ArrayList<EventHandler>();
     private static ArrayList<EventHandler> exitHandlers = new ArrayList<EventHandler>();
 
@@ -107,6 +109,20 @@ public class EventManager {
 
                 break;
 
+            case "SEEK_REPLAY":
+                if (!seekReplayHandlers.contains( eventHandler )) {
+                    handlers = seekReplayHandlers;
+                }
+
+                break;
+
+            case "INSTANT_REPLAY":
+                if (!instantReplayHandlers.contains( eventHandler )) {
+                    handlers = instantReplayHandlers;
+                }
+
+                break;
+
             case "NEW_PLAYER":
                 if (!newPlayerHandlers.contains( eventHandler )) {
                     handlers = newPlayerHandlers;
@@ -129,6 +145,19 @@ public class EventManager {
         }
     }
 
+    /**
+     * Stop sending a type of event to a handler, e.g. when its game object leaves the world
+     * @param eventHandler to remove
+     * @param type of event
+     */
+    public static void unregister ( EventHandler eventHandler, String type ) {
+        ArrayList<EventHandler> handlers = eventMap.get( type );
+
+        if (handlers != null) {
+            handlers.remove( eventHandler );
+        }
+    }
+
     /**
      * Add an event to the queue
      * @param e
@@ -147,23 +176,17 @@ public class EventManager {
 
     /**
      * Empty the event queue and send the event to it's handler
+     *
+     * The queue is only locked while taking an event off, so handlers (and the scripts they run,
+     * possibly on another thread) can add new events without waiting on this loop.
      */
-    public synchronized static void handleEvents() {
-        // peek
+    public static void handleEvents() {
         Event event;
 
-        // if the queue is not empty
-        // and if the time to handle is appropriate!
-        while ((event = eventQueue.peek()) != null && event.getTimeToHandle() <= eventTimeline.getTime()) {
+        // while there is an event whose time to handle is appropriate
+        while ((event = nextEvent()) != null) {
             //System.out.println( "Current event time: " + event.getTimeToHandle() );
 
-            // glitch? the event seems normal to me, but NPE is thrown?
-            try {
-                eventQueue.remove();
-            }
-            catch (NullPointerException npe) {
-            }
-
             // get the appropriate list of handlers
             ArrayList<EventHandler> handlers = eventMap.get( event.type );
 
@@ -180,6 +203,30 @@ public class EventManager {
         }
     }
 
+    /**
+     * Take the next event off the queue if it is time to handle it
+     * @return event, or null if there is none to handle yet
+     */
+    private synchronized static Event nextEvent() {
+        // peek
+        Event event = eventQueue.peek();
+
+        // if the queue is not empty
+        // and if the time to handle is appropriate!
+        if (event == null || event.getTimeToHandle() > eventTimeline.getTime()) {
+            return null;
+        }
+
+        // glitch? the event seems normal to me, but NPE is thrown?
+        try {
+            eventQueue.remove();
+        }
+        catch (NullPointerException npe) {
+        }
+
+        return event;
+    }
+
     /**
      * Get the next frame time
      * @return next frame
@@ -0,0 +1,67 @@
+package events;
+
+/**
+ * GameTimer is something scheduled with the TimerService: a task, the tick it runs on,
+ * and how often it repeats.
+ *
+ * Keep it to cancel the task. A timer also links itself into its slot of the timing wheel,
+ * so cancelling it unlinks it right there instead of searching for it.
+ *
+ * @author jeremypark
+ *
+ */
+public class GameTimer {
+    // what to run
+    final Runnable task;
+
+    // tick it runs on next
+    long tick;
+
+    // ticks between runs, 0 if it only runs once
+    final long period;
+
+    // neighbours in its slot of the wheel
+    GameTimer previous = null;
+    GameTimer next = null;
+
+    // where it is in the wheel, -1 when it isn't in one
+    int level = -1;
+    int slot = -1;
+
+    private volatile boolean cancelled = false;
+
+    GameTimer(Runnable task, long tick, long period) {
+        this.task = task;
+        this.tick = tick;
+        this.period = period;
+    }
+
+    /**
+     * Stop the timer, it won't run again
+     */
+    public void cancel() {
+        cancelled = true;
+        TimerService.remove( this );
+    }
+
+    /**
+     * @return if the timer was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return tick the timer runs on next
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return if the timer runs more than once
+     */
+    public boolean isRepeating() {
+        return period > 0;
+    }
+}
@@ -0,0 +1,21 @@
+package events;
+
+/**
+ * Represents asking for an instant replay of the last few seconds.
+ *
+ * @author jeremypark
+ *
+ */
+public class InstantReplayEvent extends Event {
+    /**
+     *
+     */
+    private static final long serialVersionUID = 1L;
+
+    public InstantReplayEvent(long timeStamp, long timeToHandle) {
+        setTimeStamp(timeStamp);
+        setTimeToHandle(timeToHandle);
+        setType("INSTANT_REPLAY");
+        setPriority(1);
+    }
+}
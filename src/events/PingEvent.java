@@ -0,0 +1,32 @@
+package events;
+
+/**
+ * Represents a client asking the server for the time.
+ *
+ * Holds the client's clock when the ping was sent, which the server sends back in its pong.
+ *
+ * @author jeremypark
+ *
+ */
+public class PingEvent extends Event {
+    /**
+     *
+     */
+    private static final long serialVersionUID = 1L;
+
+    // client clock when sent, in nanoseconds
+    private long clientSendTime;
+
+    public PingEvent(long clientSendTime) {
+        this.clientSendTime = clientSendTime;
+        setType("PING");
+        setPriority(1);
+    }
+
+    /**
+     * @return client clock when sent, in nanoseconds
+     */
+    public long getClientSendTime () {
+        return clientSendTime;
+    }
+}
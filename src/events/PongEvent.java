@@ -0,0 +1,54 @@
+package events;
+
+/**
+ * Represents the server's answer to a PingEvent.
+ *
+ * Echoes the client's send time, and adds the server's clock when the ping came in
+ * and when the pong went out. With the client's clock when the pong arrives,
+ * that is the four timestamps the client needs to work out the round trip time and clock offset.
+ *
+ * @author jeremypark
+ *
+ */
+public class PongEvent extends Event {
+    /**
+     *
+     */
+    private static final long serialVersionUID = 1L;
+
+    // client clock when the ping was sent, in nanoseconds
+    private long clientSendTime;
+
+    // server clock when the ping came in and when the pong went out, in nanoseconds
+    private long serverReceiveTime;
+    private long serverSendTime;
+
+    public PongEvent(long clientSendTime, long serverReceiveTime, long serverSendTime) {
+        this.clientSendTime = clientSendTime;
+        this.serverReceiveTime = serverReceiveTime;
+        this.serverSendTime = serverSendTime;
+        setType("PONG");
+        setPriority(1);
+    }
+
+    /**
+     * @return client clock when the ping was sent, in nanoseconds
+     */
+    public long getClientSendTime () {
+        return clientSendTime;
+    }
+
+    /**
+     * @return server clock when the ping came in, in nanoseconds
+     */
+    public long getServerReceiveTime () {
+        return serverReceiveTime;
+    }
+
+    /**
+     * @return server clock when the pong went out, in nanoseconds
+     */
+    public long getServerSendTime () {
+        return serverSendTime;
+    }
+}
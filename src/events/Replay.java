@@ -1,14 +1,15 @@
 package events;
 
-import java.util.PriorityQueue;
+import java.io.File;
 
+import replay.ReplayRecorder;
 import time.LocalTimeline;
 
 /**
  * Replay represents a replay of events.
  *
  * This involves a new timeline with an adjustable timeline,
- * as well as a queue of events that occurred during that time.
+ * as well as a recorder that writes the events that occurred during that time to a file.
  *
  * @author jeremypark
  *
@@ -22,20 +23,32 @@ public class Replay extends Event {
     // time that replay lasts
     private volatile LocalTimeline replayTimeline;
 
-    // queue of events that occur!
-    private volatile PriorityQueue<Event> replayQueue;
+    // file the events that occur are written to!
+    private transient volatile ReplayRecorder recorder;
 
-    public Replay(LocalTimeline replayTimeline, PriorityQueue<Event> replayQueue) {
+    // file to play back, the recording or its archive
+    private volatile File file;
+
+    public Replay(LocalTimeline replayTimeline, ReplayRecorder recorder) {
         this.replayTimeline = replayTimeline;
         this.replayTimeline.start();
-        this.replayQueue = replayQueue;
+        this.recorder = recorder;
+        this.file = recorder.getFile();
     }
 
     public LocalTimeline getTimeline() {
         return replayTimeline;
     }
 
-    public PriorityQueue<Event> getReplayQueue() {
-        return replayQueue;
+    public ReplayRecorder getRecorder() {
+        return recorder;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public void setFile(File file) {
+        this.file = file;
     }
 }
@@ -0,0 +1,41 @@
+package events;
+
+/**
+ * Represents jumping ahead or back in a replay.
+ *
+ * This event will send how many ticks to jump (negative to go back).
+ *
+ * @author jeremypark
+ *
+ */
+public class SeekReplayEvent extends Event {
+    /**
+     *
+     */
+    private static final long serialVersionUID = 1L;
+
+    // ticks to jump
+    private long ticks;
+
+    public SeekReplayEvent(long timeStamp, long timeToHandle, long ticks) {
+        setTimeStamp(timeStamp);
+        setTimeToHandle(timeToHandle);
+        setTicks(ticks);
+        setType("SEEK_REPLAY");
+        setPriority(1);
+    }
+
+    /**
+     * @return the ticks
+     */
+    public long getTicks () {
+        return ticks;
+    }
+
+    /**
+     * @param ticks the ticks to set
+     */
+    public void setTicks ( long ticks ) {
+        this.ticks = ticks;
+    }
+}
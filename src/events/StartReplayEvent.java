@@ -3,7 +3,7 @@ package events;
 /**
  * Represents the beginning of a replay.
  *
- * This event will send a tic size for the replay speed.
+ * This event will send a time scale for the replay speed (1 is normal speed, 2 is double, 0.5 is half).
  *
  * @author jeremypark
  *
@@ -14,28 +14,28 @@ public class StartReplayEvent extends Event {
      */
     private static final long serialVersionUID = 1L;
 
-    // tic size for the replay
-    private int ticSize;
+    // speed of the replay
+    private double timeScale;
 
-    public StartReplayEvent(long timeStamp, long timeToHandle, int ticSize) {
+    public StartReplayEvent(long timeStamp, long timeToHandle, double timeScale) {
         setTimeStamp(timeStamp);
         setTimeToHandle(timeToHandle);
-        setTicSize(ticSize);
+        setTimeScale(timeScale);
         setType("START_REPLAY");
         setPriority(1);
     }
 
     /**
-     * @return the ticSize
+     * @return the timeScale
      */
-    public int getTicSize () {
-        return ticSize;
+    public double getTimeScale () {
+        return timeScale;
     }
 
     /**
-     * @param ticSize the ticSize to set
+     * @param timeScale the timeScale to set
      */
-    public void setTicSize ( int ticSize ) {
-        this.ticSize = ticSize;
+    public void setTimeScale ( double timeScale ) {
+        this.timeScale = timeScale;
     }
 }
@@ -0,0 +1,257 @@
+package events;
+
+import java.util.ArrayList;
+
+/**
+ * TimerService runs tasks on a tick of the event manager's timeline, so nothing has to make an Event
+ * and work out its time to handle just to do something later:
+ *
+ *     GameTimer respawn = TimerService.scheduleAfter( 90, respawnTask );
+ *     TimerService.scheduleRepeating( 30, 30, platformTask );
+ *     respawn.cancel();
+ *
+ * Timers sit in a hierarchical timing wheel: four wheels of 64 slots. The first wheel has a slot
+ * for each of the next 64 ticks, the second a slot for each of the next 64 blocks of 64 ticks, and so on.
+ * Every tick only the first wheel's slot for that tick is run. When the first wheel comes round,
+ * the next slot of the second wheel is spread out over it, and so on up. Scheduling and cancelling
+ * are a few array and list operations however many timers there are, and a timer is only moved
+ * once per wheel. Timers further away than the wheels reach wait in the last slot and are put back
+ * when they come round.
+ *
+ * Ticks are the event manager's timeline, so timers pause and speed up with it. If the timeline
+ * skips ahead, every tick in between is still run, in order.
+ *
+ * I read this paper on timing wheels to help me make this class:
+ * http://www.cs.columbia.edu/~nahum/w6998/papers/sosp87-timing-wheels.pdf
+ *
+ * @author jeremypark
+ *
+ */
+public class TimerService {
+    // slots per wheel, as bits
+    private static final int WHEEL_BITS = 6;
+    private static final int SLOTS = 1 << WHEEL_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    // number of wheels
+    private static final int LEVELS = 4;
+
+    // furthest the wheels reach, in ticks
+    private static final long MAX_DELAY = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    // first timer in each slot of each wheel
+    private static GameTimer[][] wheels = new GameTimer[LEVELS][SLOTS];
+
+    // next tick to run, -1 before the first timer
+    private static long nextTick = -1;
+
+    // number of timers in the wheels
+    private static int pending = 0;
+
+    /**
+     * Run a task on a tick
+     * @param tick of the event manager's timeline, if it has passed the task runs on the next advance
+     * @param task to run
+     * @return timer, to cancel it
+     */
+    public synchronized static GameTimer schedule(long tick, Runnable task) {
+        return add( new GameTimer(task, tick, 0) );
+    }
+
+    /**
+     * Run a task after a number of ticks
+     * @param ticks to wait, at least 1
+     * @param task to run
+     * @return timer, to cancel it
+     */
+    public synchronized static GameTimer scheduleAfter(long ticks, Runnable task) {
+        return add( new GameTimer(task, now() + Math.max( ticks, 1 ), 0) );
+    }
+
+    /**
+     * Run a task again and again
+     * @param delay ticks until the first run, at least 1
+     * @param period ticks between runs, at least 1
+     * @param task to run
+     * @return timer, to cancel it
+     */
+    public synchronized static GameTimer scheduleRepeating(long delay, long period, Runnable task) {
+        if (period < 1) {
+            throw new IllegalArgumentException( "Period has to be at least one tick" );
+        }
+
+        return add( new GameTimer(task, now() + Math.max( delay, 1 ), period) );
+    }
+
+    /**
+     * Run every timer up to the event manager's current tick. Call this once per frame, after the events are handled.
+     */
+    public static void advance() {
+        ArrayList<GameTimer> due = new ArrayList<GameTimer>();
+
+        synchronized (TimerService.class) {
+            long now = EventManager.eventTimeline.getTime();
+
+            if (nextTick < 0 || pending == 0) {
+                // nothing to run on the ticks in between
+                nextTick = Math.max( nextTick, now );
+            }
+
+            while (nextTick <= now) {
+                cascade( nextTick );
+
+                // take the whole slot
+                int slot = (int) (nextTick & SLOT_MASK);
+                GameTimer timer = wheels[0][slot];
+                wheels[0][slot] = null;
+
+                while (timer != null) {
+                    GameTimer next = timer.next;
+                    unlinked( timer );
+                    due.add( timer );
+
+                    // repeats go back in now, so a skip ahead runs them once per period
+                    if (timer.period > 0) {
+                        timer.tick += timer.period;
+                        insert( timer );
+                    }
+
+                    timer = next;
+                }
+
+                nextTick++;
+            }
+        }
+
+        // run outside the lock, tasks may schedule and cancel
+        for (int i = 0; i < due.size(); i++) {
+            GameTimer timer = due.get( i );
+
+            if (timer.isCancelled()) {
+                continue;
+            }
+
+            try {
+                timer.task.run();
+            }
+            catch (RuntimeException re) {
+                re.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * @return number of timers waiting to run
+     */
+    public synchronized static int pending() {
+        return pending;
+    }
+
+    /**
+     * Take a timer out of its wheel, if it is in one
+     * @param timer to take out
+     */
+    synchronized static void remove(GameTimer timer) {
+        if (timer.level < 0) {
+            return;
+        }
+
+        if (timer.previous == null) {
+            wheels[timer.level][timer.slot] = timer.next;
+        } else {
+            timer.previous.next = timer.next;
+        }
+
+        if (timer.next != null) {
+            timer.next.previous = timer.previous;
+        }
+
+        unlinked( timer );
+    }
+
+    /**
+     * Tick a new timer counts from
+     */
+    private static long now() {
+        return Math.max( nextTick - 1, EventManager.eventTimeline.getTime() );
+    }
+
+    /**
+     * Put a new timer in the wheels
+     */
+    private static GameTimer add(GameTimer timer) {
+        if (timer.task == null) {
+            throw new IllegalArgumentException( "Timer needs a task" );
+        }
+
+        if (nextTick < 0) {
+            nextTick = EventManager.eventTimeline.getTime();
+        }
+
+        insert( timer );
+        return timer;
+    }
+
+    /**
+     * Put a timer in the slot for its tick, on the smallest wheel that reaches it
+     */
+    private static void insert(GameTimer timer) {
+        long delay = Math.min( Math.max( timer.tick - nextTick, 0 ), MAX_DELAY );
+        long tick = nextTick + delay;
+
+        int level = 0;
+
+        while (delay >= (1L << (WHEEL_BITS * (level + 1)))) {
+            level++;
+        }
+
+        int slot = (int) ((tick >> (WHEEL_BITS * level)) & SLOT_MASK);
+
+        // link it in at the front
+        timer.level = level;
+        timer.slot = slot;
+        timer.previous = null;
+        timer.next = wheels[level][slot];
+
+        if (timer.next != null) {
+            timer.next.previous = timer;
+        }
+
+        wheels[level][slot] = timer;
+        pending++;
+    }
+
+    /**
+     * When a wheel comes round, spread the next slot of the wheel above over the wheels below
+     */
+    private static void cascade(long tick) {
+        for (int level = 1; level < LEVELS; level++) {
+            // only when every wheel below has come round
+            if ((tick & ((1L << (WHEEL_BITS * level)) - 1)) != 0) {
+                return;
+            }
+
+            int slot = (int) ((tick >> (WHEEL_BITS * level)) & SLOT_MASK);
+            GameTimer timer = wheels[level][slot];
+            wheels[level][slot] = null;
+
+            while (timer != null) {
+                GameTimer next = timer.next;
+                unlinked( timer );
+                insert( timer );
+                timer = next;
+            }
+        }
+    }
+
+    /**
+     * Forget where a timer was
+     */
+    private static void unlinked(GameTimer timer) {
+        timer.level = -1;
+        timer.slot = -1;
+        timer.previous = null;
+        timer.next = null;
+        pending--;
+    }
+}
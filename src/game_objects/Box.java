@@ -1,5 +1,7 @@
 package game_objects;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 import abstract_components.Collidable;
@@ -13,10 +15,8 @@ import events.CollisionEvent;
 import events.DeathEvent;
 import events.Event;
 import events.EventHandler;
-import events.EventManager;
-import events.SpawnEvent;
-import scripting.ScriptManager;
-import server.GameServer;
+import physics.PhysicsStore;
+import physics.PhysicsSystem;
 
 /**
  * Character represents a square on the screen that the user can manipulate.
@@ -29,9 +29,6 @@ public class Box extends GameObject implements Serializable, EventHandler {
      */
     private static final long serialVersionUID = 1L;
 
-    // list of game objects, so that they can be checked for collisions
-    private GameObjectList gameObjects;
-
     /**
      * Components
      */
@@ -41,9 +38,6 @@ public class Box extends GameObject implements Serializable, EventHandler {
     CollisionComponent collisionComponent;
     ControlComponent controlComponent;
 
-    // if the box is falling
-    boolean falling;
-
     // how many times the box has died.
     private int deathCount = 0;
 
@@ -63,69 +57,22 @@ public class Box extends GameObject implements Serializable, EventHandler {
         this.controlComponent = (ControlComponent) controlComponent;
         this.collisionComponent = (CollisionComponent) collisionComponent;
         sizeComponent.setDimensions( this );
+
+        // the physics system moves boxes, and keeps their speed in the store
+        // boxes stand on solids and set off triggers, but pass through spawn points and other players
+        PhysicsStore.setFlag( getSlot(), PhysicsStore.MOVER );
+        PhysicsStore.setLayers( getSlot(), PhysicsStore.LAYER_PLAYER, PhysicsStore.LAYER_SOLID | PhysicsStore.LAYER_TRIGGER );
+        moveComponent.attach( getSlot() );
     }
 
     /**
      * How the BoxCharacter updates
+     *
+     * Moving and colliding happen for every box at once in PhysicsSystem.step,
+     * so there is nothing left to do per box here.
      */
     public void update () {
-        // Get a record of all of the game objects
-        gameObjects = GameServer.getGameObjects();
-
-        //move
-        moveComponent.move(this);
-
-        // flag to tell us if the box is falling
-        falling = true;
-
-        // Check to see if you collide with any objects
-        for (int i = 0; i < gameObjects.size(); i++) {
-            // don't check against yourself
-            if (i + 1 != this.getGUID()) {
-                GameObject potentialObstacle = gameObjects.get( i );
-
-                // If you just collided with a death zone, then respawn
-                if (potentialObstacle instanceof SpawnPoint) {
-                    break;
-                }
-
-                // create a collision event (it can be null though).
-                Event collision = collisionComponent.checkCollision( this, potentialObstacle );
-
-                // if you are colliding with something
-                if (this != potentialObstacle && collision != null) {
-                    // if it is colliding, add the collision event to the queue
-                    EventManager.addEvent( collision );
-                    falling = false;
-
-                    // If you just collided with a death zone, then respawn
-                    if (potentialObstacle instanceof DeathZone) {
-                        // get random spawn point
-                        SpawnPoint spawn = GameServer.getRandomSpawnPoint();
-
-                        // raise death event
-                        Event death = new DeathEvent(EventManager.nextFrame(), EventManager.offset(), this.getGUID());
-
-                        // raise spawn event
-                        Event spawnEvent = new SpawnEvent(EventManager.nextFrame(), EventManager.offset(), this.getGUID(), spawn);
-
-                        // add spawn and death!
-                        EventManager.addEvent( death );
-                        EventManager.addEvent( spawnEvent );
-                    }
-
-                    break;
-                }
-            }
-        }
-
-        // if you are still falling
-        if (falling) {
-            moveComponent.increaseYSpeed();
-        }
-
-        //render
-        renderComponent.display( this );
+        // moved by the physics system
     }
 
     /**
@@ -140,6 +87,7 @@ public class Box extends GameObject implements Serializable, EventHandler {
      * Keyboard input to go left
      */
     public void goLeft() {
+        PhysicsSystem.wake( getSlot() );
         moveComponent.goLeft();
     }
 
@@ -147,6 +95,7 @@ public class Box extends GameObject implements Serializable, EventHandler {
      * Keyboard input to go right
      */
     public void goRight() {
+        PhysicsSystem.wake( getSlot() );
         moveComponent.goRight();
     }
 
@@ -171,7 +120,7 @@ public class Box extends GameObject implements Serializable, EventHandler {
      * @return x speed
      */
     public int getXSpeed() {
-        return moveComponent.xSpeed;
+        return moveComponent.getXSpeed();
     }
 
     /**
@@ -179,7 +128,7 @@ public class Box extends GameObject implements Serializable, EventHandler {
      * @return y speed
      */
     public int getYSpeed() {
-        return moveComponent.ySpeed;
+        return moveComponent.getYSpeed();
     }
 
     /**
@@ -187,9 +136,10 @@ public class Box extends GameObject implements Serializable, EventHandler {
      * Taken from https://happycoding.io/tutorials/processing/collision-detection#snapping-to-an-edge
      */
     public void jump() {
-        if ( !falling ) {
+        if ( !isFalling() ) {
+            PhysicsSystem.wake( getSlot() );
             moveComponent.setYSpeed( ControlComponent.JUMP_VALUE );
-            falling = true;
+            PhysicsStore.setFlag( getSlot(), PhysicsStore.FALLING );
         }
     }
 
@@ -205,7 +155,7 @@ public class Box extends GameObject implements Serializable, EventHandler {
      * @return
      */
     public boolean isFalling() {
-        return falling;
+        return PhysicsStore.hasFlag( getSlot(), PhysicsStore.FALLING );
     }
 
     /**************** EVENT HANDLING ****************/
@@ -221,9 +171,6 @@ public class Box extends GameObject implements Serializable, EventHandler {
             case "DEATH":
                 handleDeath(e);
                 break;
-            case "SPAWN":
-                handleSpawn(e);
-                break;
             default:
                 System.out.println( "Invalid event type." );
         }
@@ -242,7 +189,7 @@ public class Box extends GameObject implements Serializable, EventHandler {
         if (collision.getGUID() == this.getGUID()) {
             // handle vertical collision
             if (collision.getDirection().equals( "VERTICAL" )) {
-                if (!falling) {
+                if (!isFalling()) {
                     collisionComponent.collideVertically(this);
                 }
             }
@@ -253,28 +200,6 @@ public class Box extends GameObject implements Serializable, EventHandler {
         }
     }
 
-    /**
-     * Spawn the character in a new place
-     * @param e event
-     */
-    public void handleSpawn (Event e) {
-        SpawnEvent spawn = (SpawnEvent) e;
-
-        /**
-         * Algorithm for loading, binding and executing taken from Dr. Roberts' ScriptIntegrationExample.java class.
-         */
-
-        // load the script
-        ScriptManager.loadScript("src/scripting/spawn_handler.js");
-
-        // give a Java object a Javascript name. Just renaming
-        ScriptManager.bindArgument("spawn", spawn);
-        ScriptManager.bindArgument("box", this);
-
-        // you can send in parameters for your script
-        ScriptManager.executeScript();
-    }
-
     /**
      * The character dies :(
      * @param e event
@@ -286,4 +211,12 @@ public class Box extends GameObject implements Serializable, EventHandler {
             die();
         }
     }
+
+    /**
+     * A received box gets a new slot, so point its move component at it.
+     */
+    private void readObject(ObjectInputStream input) throws ClassNotFoundException, IOException {
+        input.defaultReadObject();
+        moveComponent.attach( getSlot() );
+    }
 }
@@ -3,6 +3,12 @@ package game_objects;
 import java.io.Serializable;
 
 import abstract_components.Sizeable;
+import events.DeathEvent;
+import events.Event;
+import events.EventManager;
+import events.SpawnEvent;
+import physics.PhysicsStore;
+import server.GameServer;
 
 /**
  * Death zone represents the non-rendered location in the map that,
@@ -22,11 +28,37 @@ public class DeathZone extends GameObject implements Serializable {
         super( GUID );
         this.sizeComponent = sizeComponent;
         sizeComponent.setDimensions( this );
+
+        // boxes don't stand on the death zone, they fall into it
+        PhysicsStore.setLayers( getSlot(), PhysicsStore.LAYER_TRIGGER, 0 );
     }
     public void update () {
         // update!
     }
 
+    /**
+     * A box fell in: it dies and respawns somewhere random.
+     * @param mover box that entered the death zone
+     */
+    @Override
+    public void onTriggerEnter (GameObject mover) {
+        // stop the fall so the box doesn't come out of the spawn point at full speed
+        PhysicsStore.vy[mover.getSlot()] = 0;
+
+        // get random spawn point
+        SpawnPoint spawn = GameServer.getRandomSpawnPoint();
+
+        // raise death event
+        Event death = new DeathEvent(EventManager.nextFrame(), EventManager.offset(), mover.getGUID());
+
+        // raise spawn event
+        Event spawnEvent = new SpawnEvent(EventManager.nextFrame(), EventManager.offset(), mover.getGUID(), spawn);
+
+        // add spawn and death!
+        EventManager.addEvent( death );
+        EventManager.addEvent( spawnEvent );
+    }
+
     /**
      * Draw
      */
@@ -1,14 +1,23 @@
 package game_objects;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
 import abstract_components.Placeable;
 import concrete_components.PlaceComponent;
+import display.Screen;
+import physics.PhysicsStore;
+import physics.PhysicsSystem;
 
 /**
  * GameObject represents an object represented in the game.
  * Every GameObject has an x and y position, a length and height, and a globally unique identifier.
  *
+ * The position and size are not stored in the object itself: every GameObject owns a slot in the
+ * PhysicsStore, and the getters and setters below read and write that slot.
+ *
  * I read this Game Programming Patterns chapter to help me make this class:
  * http://gameprogrammingpatterns.com/update-method.html
  *
@@ -22,19 +31,19 @@ public abstract class GameObject implements Serializable {
      *
      */
     private static final long serialVersionUID = 1L;
-    public int x;
-    public int y;
-    public int width;
-    public int height;
     private int GUID;
     private Placeable placeComponent = new PlaceComponent();
 
+    // slot in the physics store that holds x, y, width and height
+    private transient int slot;
+
     /**
      * GameObject constructor
-     * Set the GameObject's GUID
+     * Set the GameObject's GUID and give it a slot in the physics store
      */
     public GameObject(int GUID) {
         this.GUID = GUID;
+        slot = PhysicsStore.allocate( this );
     }
 
     /**
@@ -61,5 +70,142 @@ public abstract class GameObject implements Serializable {
      */
     public void setLocation(int x, int y) {
         placeComponent.setLocation( this, x, y );
+
+        // a sleeping box that gets moved has to be simulated again
+        PhysicsSystem.wake( slot );
+    }
+
+    /**
+     * React to running into another game object.
+     * Most game objects don't move, so they don't care.
+     * @param obstacle game object that was hit
+     */
+    public void onCollision(GameObject obstacle) {
+        // nothing by default
+    }
+
+    /**
+     * A mover walked into this game object, which is a trigger.
+     * @param mover game object that entered
+     */
+    public void onTriggerEnter(GameObject mover) {
+        // nothing by default
+    }
+
+    /**
+     * Give this game object's slot back to the physics store.
+     * Call this when the game object leaves the world.
+     */
+    public void destroy() {
+        // anything resting on this game object has to start falling
+        PhysicsSystem.wakeArea( getX(), getY(), getWidth(), getHeight() );
+        PhysicsStore.free( slot );
+    }
+
+    /**
+     * @return slot in the physics store
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * @return x position
+     */
+    public int getX() {
+        return PhysicsStore.x[slot];
+    }
+
+    /**
+     * @param x new x position
+     */
+    public void setX(int x) {
+        PhysicsStore.x[slot] = x;
+    }
+
+    /**
+     * Where to draw this game object in between physics steps
+     * @return interpolated x position
+     */
+    public float getDrawX() {
+        return PhysicsStore.drawX( slot, Screen.renderAlpha );
+    }
+
+    /**
+     * Where to draw this game object in between physics steps
+     * @return interpolated y position
+     */
+    public float getDrawY() {
+        return PhysicsStore.drawY( slot, Screen.renderAlpha );
+    }
+
+    /**
+     * @return y position
+     */
+    public int getY() {
+        return PhysicsStore.y[slot];
+    }
+
+    /**
+     * @param y new y position
+     */
+    public void setY(int y) {
+        PhysicsStore.y[slot] = y;
+    }
+
+    /**
+     * @return width
+     */
+    public int getWidth() {
+        return PhysicsStore.w[slot];
+    }
+
+    /**
+     * @param width new width
+     */
+    public void setWidth(int width) {
+        PhysicsStore.w[slot] = width;
+    }
+
+    /**
+     * @return height
+     */
+    public int getHeight() {
+        return PhysicsStore.h[slot];
+    }
+
+    /**
+     * @param height new height
+     */
+    public void setHeight(int height) {
+        PhysicsStore.h[slot] = height;
+    }
+
+    /**
+     * The slot isn't sent over the network, so write out what is in it.
+     */
+    private void writeObject(ObjectOutputStream output) throws IOException {
+        output.defaultWriteObject();
+        output.writeInt( getX() );
+        output.writeInt( getY() );
+        output.writeInt( getWidth() );
+        output.writeInt( getHeight() );
+        output.writeInt( PhysicsStore.flags[slot] );
+        output.writeInt( PhysicsStore.layer[slot] );
+        output.writeInt( PhysicsStore.mask[slot] );
+    }
+
+    /**
+     * Get a slot in this process's physics store and fill it back in.
+     */
+    private void readObject(ObjectInputStream input) throws ClassNotFoundException, IOException {
+        input.defaultReadObject();
+        slot = PhysicsStore.allocate( this );
+        setX( input.readInt() );
+        setY( input.readInt() );
+        setWidth( input.readInt() );
+        setHeight( input.readInt() );
+        PhysicsStore.flags[slot] = input.readInt();
+        PhysicsStore.setLayers( slot, input.readInt(), input.readInt() );
     }
 }
@@ -48,7 +48,7 @@ public class GameObjectList extends ArrayList<GameObject> implements Serializabl
     public void removeByGUID(int GUID) {
         for (int i = 0; i < size(); i++) {
             if (get(i).getGUID() == GUID) {
-                remove(i);
+                remove(i).destroy();
             }
         }
     }
@@ -6,6 +6,7 @@ import abstract_components.Movable;
 import abstract_components.Renderable;
 import abstract_components.Sizeable;
 import concrete_components.MoveComponent;
+import physics.PhysicsStore;
 
 public class MovingPlatform extends Platform implements Serializable {
     /**
@@ -14,13 +15,31 @@ public class MovingPlatform extends Platform implements Serializable {
     private static final long serialVersionUID = 1L;
     MoveComponent moveComponent; // movement component
 
+    // if this platform has joined the movement script's batch
+    private transient boolean inBatch = false;
+
     public MovingPlatform(int GUID, Sizeable sizeComponent, Renderable renderComponent, Movable moveComponent) {
         super(GUID, sizeComponent, renderComponent);
         this.moveComponent = (MoveComponent) moveComponent;
+
+        // moved by its script, so it wakes up boxes it passes
+        PhysicsStore.setFlag( getSlot(), PhysicsStore.KINEMATIC );
     }
 
     public void update () {
-        renderComponent.display( this );
-        moveComponent.platformMove( this );
+        // the platform movement script runs once for all platforms, after every object has updated
+        if (!inBatch) {
+            moveComponent.joinPlatformBatch( this );
+            inBatch = true;
+        }
+    }
+
+    public void destroy () {
+        if (inBatch) {
+            moveComponent.leavePlatformBatch( this );
+            inBatch = false;
+        }
+
+        super.destroy();
     }
 }
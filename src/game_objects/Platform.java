@@ -4,6 +4,7 @@ import java.io.Serializable;
 
 import abstract_components.Renderable;
 import abstract_components.Sizeable;
+import physics.PhysicsStore;
 
 /**
  * Platform represents a general platform that a character can jump onto.
@@ -24,10 +25,13 @@ public class Platform extends GameObject implements Serializable {
         this.renderComponent = renderComponent;
         this.sizeComponent = sizeComponent;
         sizeComponent.setDimensions( this );
+
+        // boxes can land on platforms
+        PhysicsStore.setLayers( getSlot(), PhysicsStore.LAYER_SOLID, 0 );
     }
 
     public void update () {
-        renderComponent.display( this );
+        // static platforms don't move
     }
 
     /**
@@ -40,16 +40,16 @@ public class SpawnGenerator {
         int spawnNumber = rand.nextInt(spawnPoints.size());
         SpawnPoint spawnSpot = spawnPoints.get(spawnNumber);
 
-        if (spawnSpot.x <= obj.width) {
-            obj.x = spawnSpot.x;
+        if (spawnSpot.getX() <= obj.getWidth()) {
+            obj.setX( spawnSpot.getX() );
         } else {
-            obj.x = spawnSpot.x - obj.width;
+            obj.setX( spawnSpot.getX() - obj.getWidth() );
         }
 
-        if (spawnSpot.y <= obj.height) {
-            obj.y = spawnSpot.y;
+        if (spawnSpot.getY() <= obj.getHeight()) {
+            obj.setY( spawnSpot.getY() );
         } else {
-            obj.y = spawnSpot.y - obj.height;
+            obj.setY( spawnSpot.getY() - obj.getHeight() );
         }
     }
 
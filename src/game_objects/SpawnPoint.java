@@ -1,5 +1,7 @@
 package game_objects;
 
+import physics.PhysicsStore;
+
 public class SpawnPoint extends GameObject {
     /**
      *
@@ -8,8 +10,11 @@ public class SpawnPoint extends GameObject {
 
     public SpawnPoint (int GUID, int x, int y) {
         super( GUID );
-        this.x = x;
-        this.y = y;
+        setX( x );
+        setY( y );
+
+        // spawn points just mark a spot, nothing collides with them
+        PhysicsStore.setLayers( getSlot(), PhysicsStore.LAYER_SPAWN_MARKER, 0 );
     }
 
     public void update () {
@@ -24,21 +29,5 @@ public class SpawnPoint extends GameObject {
         //renderComponent.display( this );
     }
 
-    /**
-     * Get x value
-     * @return x value
-     */
-    public int getX() {
-        return x;
-    }
-
-    /**
-     * Get y value
-     * @return y value
-     */
-    public int getY() {
-        return y;
-    }
-
 
 }
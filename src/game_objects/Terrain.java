@@ -5,6 +5,7 @@ import java.io.Serializable;
 import abstract_components.Renderable;
 import abstract_components.Sizeable;
 import concrete_components.DrawComponent;
+import physics.PhysicsStore;
 
 /**
  * Terrain represents the ground that characters will move on.
@@ -31,10 +32,13 @@ public class Terrain extends GameObject implements Serializable {
         this.renderComponent = renderComponent;
         this.sizeComponent = sizeComponent;
         sizeComponent.setDimensions( this );
+
+        // boxes can land on terrain
+        PhysicsStore.setLayers( getSlot(), PhysicsStore.LAYER_SOLID, 0 );
     }
 
     public void update () {
-        renderComponent.display( this );
+        // terrain doesn't move
     }
 
     /**
@@ -42,6 +46,6 @@ public class Terrain extends GameObject implements Serializable {
      */
     @Override
     public void draw () {
-        update();
+        renderComponent.display( this );
     }
 }
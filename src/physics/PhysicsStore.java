@@ -0,0 +1,269 @@
+package physics;
+
+import game_objects.GameObject;
+
+/**
+ * PhysicsStore holds the physics state of every game object in flat arrays.
+ *
+ * Each game object owns a slot, and its position, size, speed and flags live at that index
+ * in parallel int arrays (a structure of arrays). The movement and collision passes in
+ * PhysicsSystem walk these arrays from front to back instead of jumping between components.
+ *
+ * I read this Game Programming Patterns chapter to help me make this class:
+ * http://gameprogrammingpatterns.com/data-locality.html
+ *
+ * Specifically, the idea of keeping the hot data of many objects packed together in memory.
+ *
+ * @author jeremypark
+ *
+ */
+public class PhysicsStore {
+    /**
+     * Flags
+     */
+    // slot is in use
+    public static final int ACTIVE = 1;
+    // slot is moved by the movement pass
+    public static final int MOVER = 1 << 1;
+    // mover is in the air
+    public static final int FALLING = 1 << 2;
+    // mover hit something from above or below last pass
+    public static final int COLLIDING_VERTICALLY = 1 << 3;
+    // mover hit something from the side last pass
+    public static final int COLLIDING_HORIZONTALLY = 1 << 4;
+    // mover has been resting long enough that the physics step skips it
+    public static final int SLEEPING = 1 << 5;
+    // obstacle that is moved by something other than the physics step (e.g. a script)
+    public static final int KINEMATIC = 1 << 6;
+
+    /**
+     * Collision layers
+     *
+     * Every slot is on one or more layers, and has a mask of the layers it collides with.
+     * A mover only looks at an obstacle if the obstacle's layer is in the mover's mask.
+     */
+    // blocks movers (terrain, platforms)
+    public static final int LAYER_SOLID = 1;
+    // doesn't block, but reports movers that enter it (death zone)
+    public static final int LAYER_TRIGGER = 1 << 1;
+    // only marks a place on the map (spawn points)
+    public static final int LAYER_SPAWN_MARKER = 1 << 2;
+    // player boxes
+    public static final int LAYER_PLAYER = 1 << 3;
+
+    // starting number of slots
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Parallel arrays indexed by slot
+     */
+    public static int[] x = new int[INITIAL_CAPACITY];
+    public static int[] y = new int[INITIAL_CAPACITY];
+    public static int[] w = new int[INITIAL_CAPACITY];
+    public static int[] h = new int[INITIAL_CAPACITY];
+    public static int[] vx = new int[INITIAL_CAPACITY];
+    public static int[] vy = new int[INITIAL_CAPACITY];
+    public static int[] flags = new int[INITIAL_CAPACITY];
+
+    // position at the start of the last step, for drawing in between steps
+    public static int[] previousX = new int[INITIAL_CAPACITY];
+    public static int[] previousY = new int[INITIAL_CAPACITY];
+
+    // layers each slot is on, and layers each slot collides with
+    public static int[] layer = new int[INITIAL_CAPACITY];
+    public static int[] mask = new int[INITIAL_CAPACITY];
+
+    // trigger each mover is inside (-1 for none), and the trigger it entered this step (-1 for none)
+    public static int[] triggerSlot = new int[INITIAL_CAPACITY];
+    public static int[] enteredTrigger = new int[INITIAL_CAPACITY];
+
+    // obstacle each mover hit during the last step (-1 for nothing) and on which sides
+    public static int[] contactSlot = new int[INITIAL_CAPACITY];
+    public static int[] contactHit = new int[INITIAL_CAPACITY];
+
+    // number of steps in a row a mover has been standing still on something
+    public static int[] restTicks = new int[INITIAL_CAPACITY];
+
+    // game object that owns each slot (only read when something collides)
+    public static GameObject[] owners = new GameObject[INITIAL_CAPACITY];
+
+    // one past the highest slot ever handed out; passes loop up to here
+    public static volatile int count = 0;
+
+    // slots that were freed and can be handed out again
+    private static int[] freeSlots = new int[INITIAL_CAPACITY];
+    private static int freeCount = 0;
+
+    /**
+     * Give a game object a slot in the store.
+     * On the server, only call this on the game loop: growing swaps in new arrays one at a time,
+     * and a step working on the old ones would lose what it writes.
+     * @param owner game object that owns the slot
+     * @return slot index
+     */
+    public synchronized static int allocate(GameObject owner) {
+        int slot;
+
+        // reuse a freed slot before growing
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (count == flags.length) {
+                grow();
+            }
+
+            slot = count;
+        }
+
+        x[slot] = 0;
+        y[slot] = 0;
+        w[slot] = 0;
+        h[slot] = 0;
+        vx[slot] = 0;
+        vy[slot] = 0;
+        previousX[slot] = 0;
+        previousY[slot] = 0;
+        contactSlot[slot] = -1;
+        contactHit[slot] = 0;
+        restTicks[slot] = 0;
+        layer[slot] = 0;
+        mask[slot] = 0;
+        triggerSlot[slot] = -1;
+        enteredTrigger[slot] = -1;
+        flags[slot] = ACTIVE;
+        owners[slot] = owner;
+
+        // publish the slot to the passes last
+        if (slot == count) {
+            count = slot + 1;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Give a slot back to the store
+     * @param slot to free
+     */
+    public synchronized static void free(int slot) {
+        if (slot < 0 || slot >= count || flags[slot] == 0) {
+            return;
+        }
+
+        flags[slot] = 0;
+        owners[slot] = null;
+
+        if (freeCount == freeSlots.length) {
+            int[] bigger = new int[freeSlots.length * 2];
+            System.arraycopy( freeSlots, 0, bigger, 0, freeCount );
+            freeSlots = bigger;
+        }
+
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Check a flag on a slot
+     * @param slot to check
+     * @param flag to look for
+     * @return if the flag is set
+     */
+    public static boolean hasFlag(int slot, int flag) {
+        return (flags[slot] & flag) != 0;
+    }
+
+    /**
+     * Set a flag on a slot
+     * @param slot to change
+     * @param flag to set
+     */
+    public static void setFlag(int slot, int flag) {
+        flags[slot] |= flag;
+    }
+
+    /**
+     * Clear a flag on a slot
+     * @param slot to change
+     * @param flag to clear
+     */
+    public static void clearFlag(int slot, int flag) {
+        flags[slot] &= ~flag;
+    }
+
+    /**
+     * Put a slot on collision layers
+     * @param slot to change
+     * @param layers the slot is on
+     * @param collidesWith layers the slot collides with
+     */
+    public static void setLayers(int slot, int layers, int collidesWith) {
+        layer[slot] = layers;
+        mask[slot] = collidesWith;
+    }
+
+    /**
+     * Remember where everything is before a step moves it
+     * @param count number of slots to copy
+     */
+    public static void savePositions(int count) {
+        System.arraycopy( x, 0, previousX, 0, count );
+        System.arraycopy( y, 0, previousY, 0, count );
+    }
+
+    /**
+     * Where to draw a slot's x in between steps
+     * @param slot to draw
+     * @param alpha how far into the next step we are, from 0 to 1
+     * @return interpolated x
+     */
+    public static float drawX(int slot, float alpha) {
+        return previousX[slot] + (x[slot] - previousX[slot]) * alpha;
+    }
+
+    /**
+     * Where to draw a slot's y in between steps
+     * @param slot to draw
+     * @param alpha how far into the next step we are, from 0 to 1
+     * @return interpolated y
+     */
+    public static float drawY(int slot, float alpha) {
+        return previousY[slot] + (y[slot] - previousY[slot]) * alpha;
+    }
+
+    /**
+     * Double the size of every array
+     */
+    private static void grow() {
+        int capacity = flags.length * 2;
+
+        x = copy( x, capacity );
+        y = copy( y, capacity );
+        w = copy( w, capacity );
+        h = copy( h, capacity );
+        vx = copy( vx, capacity );
+        vy = copy( vy, capacity );
+        flags = copy( flags, capacity );
+        previousX = copy( previousX, capacity );
+        previousY = copy( previousY, capacity );
+        contactSlot = copy( contactSlot, capacity );
+        contactHit = copy( contactHit, capacity );
+        restTicks = copy( restTicks, capacity );
+        layer = copy( layer, capacity );
+        mask = copy( mask, capacity );
+        triggerSlot = copy( triggerSlot, capacity );
+        enteredTrigger = copy( enteredTrigger, capacity );
+
+        GameObject[] biggerOwners = new GameObject[capacity];
+        System.arraycopy( owners, 0, biggerOwners, 0, count );
+        owners = biggerOwners;
+    }
+
+    /**
+     * Copy the used part of an array into a bigger one
+     */
+    private static int[] copy(int[] array, int capacity) {
+        int[] bigger = new int[capacity];
+        System.arraycopy( array, 0, bigger, 0, count );
+        return bigger;
+    }
+}
@@ -0,0 +1,402 @@
+package physics;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import events.CollisionEvent;
+import events.EventManager;
+import game_objects.GameObject;
+
+/**
+ * PhysicsSystem moves every mover and checks it for collisions, working directly on the PhysicsStore arrays.
+ *
+ * The movement pass and the collision pass each run over the slots in order,
+ * so the same data is read one after another instead of through each Box's components.
+ *
+ * Before any overlap math, a pair is thrown out unless the obstacle's layer is in the mover's mask,
+ * so spawn points and other players cost one AND each. Solid obstacles block the mover;
+ * trigger obstacles (like the death zone) only report that the mover entered them.
+ *
+ * Collision detection inspired by: https://happycoding.io/tutorials/processing/collision-detection
+ *
+ * @author jeremypark
+ *
+ */
+public class PhysicsSystem {
+    // results of the narrowphase
+    public static final int NO_HIT = 0;
+    public static final int VERTICAL_HIT = 1;
+    public static final int HORIZONTAL_HIT = 1 << 1;
+
+    // a slot has to have both of these to be moved
+    private static final int MOVING_BODY = PhysicsStore.ACTIVE | PhysicsStore.MOVER;
+
+    // masking with this and comparing to MOVING_BODY picks out awake movers
+    private static final int SLEEPING_BODY = MOVING_BODY | PhysicsStore.SLEEPING;
+
+    // steps a mover has to stand still on something before it goes to sleep
+    public static final int SLEEP_TICKS = 30;
+
+    // below this many pair checks (awake movers times slots) the step runs on the calling thread.
+    // a pair check costs about 1 ns, and handing the step to the workers costs about 6 us before they even
+    // have to wake up, so only steps of about 50 us are worth splitting: around 250 players, not a 64 player room (about 6 us)
+    private static final long PARALLEL_PAIRS = 1 << 16;
+
+    // smallest range of slots handed to one worker
+    private static final int SLOTS_PER_TASK = 256;
+
+    // workers that run the step, one per core
+    private static final ForkJoinPool workers = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Run one physics step over every slot
+     *
+     * Movers never collide with each other (no mover has LAYER_PLAYER in its mask), and obstacles aren't moved by the physics step,
+     * so every mover is its own island: it only writes its own slot and only reads obstacles.
+     * The movers are split into ranges that run on the workers, and everything that touches
+     * shared state (events, game objects) happens afterwards on this thread, in slot order.
+     * That way the result is the same no matter how many threads there are.
+     *
+     * @param worldWidth width of the world, movers are kept inside it
+     */
+    public static void step(int worldWidth) {
+        int count = PhysicsStore.count;
+
+        // moving platforms wake up anything they pass by
+        wakeAroundKinematics( count );
+
+        // every awake mover is checked against every slot
+        if ((long) countAwakeMovers( count ) * count < PARALLEL_PAIRS) {
+            simulate( worldWidth, 0, count, count );
+        } else {
+            workers.invoke( new StepTask(worldWidth, 0, count, count) );
+        }
+
+        resolveContacts( count );
+    }
+
+    /**
+     * Count the movers the step will move
+     * @param count number of slots to look at
+     * @return awake movers
+     */
+    static int countAwakeMovers(int count) {
+        int[] flags = PhysicsStore.flags;
+        int movers = 0;
+
+        for (int i = 0; i < count; i++) {
+            if ((flags[i] & SLEEPING_BODY) == MOVING_BODY) {
+                movers++;
+            }
+        }
+
+        return movers;
+    }
+
+    /**
+     * Move and collide the movers in a range of slots
+     * @param worldWidth width of the world
+     * @param from first slot
+     * @param to one past the last slot
+     * @param count number of slots that can be obstacles
+     */
+    static void simulate(int worldWidth, int from, int to, int count) {
+        integrate( worldWidth, from, to );
+        collide( from, to, count );
+    }
+
+    /**
+     * Movement pass: keep movers on screen and add their speed to their position.
+     * Sleeping movers are skipped.
+     * @param worldWidth width of the world
+     * @param from first slot
+     * @param to one past the last slot
+     */
+    static void integrate(int worldWidth, int from, int to) {
+        int[] x = PhysicsStore.x;
+        int[] y = PhysicsStore.y;
+        int[] w = PhysicsStore.w;
+        int[] vx = PhysicsStore.vx;
+        int[] vy = PhysicsStore.vy;
+        int[] flags = PhysicsStore.flags;
+
+        for (int i = from; i < to; i++) {
+            if ((flags[i] & SLEEPING_BODY) != MOVING_BODY) {
+                continue;
+            }
+
+            if (x[i] <= 0) {
+                x[i] = 0;
+            } else if (x[i] + w[i] >= worldWidth) {
+                x[i] = worldWidth - w[i];
+            }
+
+            x[i] += vx[i];
+            y[i] += vy[i];
+        }
+    }
+
+    /**
+     * Collision pass: check each mover against the obstacles in its mask.
+     * The first solid it hits stops it; the first trigger it overlaps is noted.
+     * Movers that didn't hit anything solid are falling and speed up downwards.
+     * Movers that stayed in the same place on something for SLEEP_TICKS steps go to sleep.
+     * The hit is only written down here; resolveContacts reacts to it.
+     * @param from first mover slot
+     * @param to one past the last mover slot
+     * @param count number of slots that can be obstacles
+     */
+    static void collide(int from, int to, int count) {
+        int[] x = PhysicsStore.x;
+        int[] y = PhysicsStore.y;
+        int[] previousX = PhysicsStore.previousX;
+        int[] previousY = PhysicsStore.previousY;
+        int[] vy = PhysicsStore.vy;
+        int[] flags = PhysicsStore.flags;
+        int[] contactSlot = PhysicsStore.contactSlot;
+        int[] contactHit = PhysicsStore.contactHit;
+        int[] restTicks = PhysicsStore.restTicks;
+        int[] layer = PhysicsStore.layer;
+        int[] mask = PhysicsStore.mask;
+        int[] triggerSlot = PhysicsStore.triggerSlot;
+        int[] enteredTrigger = PhysicsStore.enteredTrigger;
+
+        for (int m = from; m < to; m++) {
+            if ((flags[m] & SLEEPING_BODY) != MOVING_BODY) {
+                continue;
+            }
+
+            flags[m] |= PhysicsStore.FALLING;
+            contactSlot[m] = -1;
+
+            int moverMask = mask[m];
+            int trigger = -1;
+
+            for (int o = 0; o < count; o++) {
+                // prune pairs that can never interact before doing any math
+                if (o == m || (layer[o] & moverMask) == 0 || (flags[o] & PhysicsStore.ACTIVE) == 0) {
+                    continue;
+                }
+
+                if ((layer[o] & PhysicsStore.LAYER_TRIGGER) != 0) {
+                    if (trigger < 0 && overlaps( m, o )) {
+                        trigger = o;
+                    }
+                } else if (contactSlot[m] < 0) {
+                    int hit = narrowphase( m, o );
+
+                    if (hit != NO_HIT) {
+                        flags[m] &= ~PhysicsStore.FALLING;
+                        contactSlot[m] = o;
+                        contactHit[m] = hit;
+                    }
+                }
+            }
+
+            // only report a trigger on the step the mover enters it
+            enteredTrigger[m] = (trigger != triggerSlot[m]) ? trigger : -1;
+            triggerSlot[m] = trigger;
+
+            // if you are still falling
+            if ((flags[m] & PhysicsStore.FALLING) != 0) {
+                vy[m]++;
+            }
+
+            // count how long the mover has been resting on something that doesn't move.
+            // go by where it ended up, not its speed: a box pushing against the edge of the world keeps its speed but stays put
+            int support = contactSlot[m];
+
+            if (support >= 0 && x[m] == previousX[m] && y[m] == previousY[m] && (flags[support] & PhysicsStore.KINEMATIC) == 0) {
+                if (++restTicks[m] >= SLEEP_TICKS) {
+                    flags[m] |= PhysicsStore.SLEEPING;
+                    contactSlot[m] = -1;
+                }
+            } else {
+                restTicks[m] = 0;
+            }
+        }
+    }
+
+    /**
+     * Raise collision events for the contacts found this step, and tell triggers who entered them, in slot order
+     * @param count number of slots to look at
+     */
+    static void resolveContacts(int count) {
+        int[] flags = PhysicsStore.flags;
+        int[] contactSlot = PhysicsStore.contactSlot;
+        int[] contactHit = PhysicsStore.contactHit;
+        int[] enteredTrigger = PhysicsStore.enteredTrigger;
+
+        for (int m = 0; m < count; m++) {
+            if ((flags[m] & SLEEPING_BODY) != MOVING_BODY) {
+                continue;
+            }
+
+            GameObject mover = PhysicsStore.owners[m];
+
+            if (contactSlot[m] >= 0) {
+                // if it is colliding, add the collision event to the queue
+                EventManager.addEvent( toEvent( mover.getGUID(), contactHit[m] ) );
+
+                // let the mover react to what it hit
+                mover.onCollision( PhysicsStore.owners[contactSlot[m]] );
+            }
+
+            if (enteredTrigger[m] >= 0) {
+                PhysicsStore.owners[enteredTrigger[m]].onTriggerEnter( mover );
+            }
+        }
+    }
+
+    /**
+     * Wake a mover up so the physics step looks at it again.
+     * Call this on the game loop: the step changes the same flags and rest counts.
+     * @param slot of the mover
+     */
+    public static void wake(int slot) {
+        PhysicsStore.restTicks[slot] = 0;
+        PhysicsStore.clearFlag( slot, PhysicsStore.SLEEPING );
+    }
+
+    /**
+     * Wake every sleeping mover that overlaps or touches an area
+     * @param x left of the area
+     * @param y top of the area
+     * @param width of the area
+     * @param height of the area
+     */
+    public static void wakeArea(int x, int y, int width, int height) {
+        int count = PhysicsStore.count;
+        int[] flags = PhysicsStore.flags;
+
+        for (int m = 0; m < count; m++) {
+            if ((flags[m] & SLEEPING_BODY) == SLEEPING_BODY && touches( m, x, y, width, height )) {
+                wake( m );
+            }
+        }
+    }
+
+    /**
+     * Wake the sleepers near every kinematic obstacle that moved since the last step
+     * @param count number of slots to look at
+     */
+    static void wakeAroundKinematics(int count) {
+        int[] x = PhysicsStore.x;
+        int[] y = PhysicsStore.y;
+        int[] previousX = PhysicsStore.previousX;
+        int[] previousY = PhysicsStore.previousY;
+        int[] flags = PhysicsStore.flags;
+
+        for (int o = 0; o < count; o++) {
+            if ((flags[o] & PhysicsStore.KINEMATIC) == 0 || (flags[o] & PhysicsStore.ACTIVE) == 0) {
+                continue;
+            }
+
+            if (x[o] != previousX[o] || y[o] != previousY[o]) {
+                // cover where it was and where it is now
+                int left = Math.min( x[o], previousX[o] );
+                int top = Math.min( y[o], previousY[o] );
+                int right = Math.max( x[o], previousX[o] ) + PhysicsStore.w[o];
+                int bottom = Math.max( y[o], previousY[o] ) + PhysicsStore.h[o];
+
+                wakeArea( left, top, right - left, bottom - top );
+            }
+        }
+    }
+
+    /**
+     * Check if two slots overlap
+     */
+    private static boolean overlaps(int a, int b) {
+        return PhysicsStore.x[a] < PhysicsStore.x[b] + PhysicsStore.w[b] && PhysicsStore.x[a] + PhysicsStore.w[a] > PhysicsStore.x[b]
+                && PhysicsStore.y[a] < PhysicsStore.y[b] + PhysicsStore.h[b] && PhysicsStore.y[a] + PhysicsStore.h[a] > PhysicsStore.y[b];
+    }
+
+    /**
+     * Check if a slot overlaps or touches the edge of an area
+     */
+    private static boolean touches(int slot, int x, int y, int width, int height) {
+        return PhysicsStore.x[slot] <= x + width && PhysicsStore.x[slot] + PhysicsStore.w[slot] >= x
+                && PhysicsStore.y[slot] <= y + height && PhysicsStore.y[slot] + PhysicsStore.h[slot] >= y;
+    }
+
+    /**
+     * Check if a mover will run into an obstacle with its current speed.
+     * A vertical hit snaps the mover to the top of the obstacle.
+     * @param m slot of the mover
+     * @param o slot of the obstacle
+     * @return which sides were hit
+     */
+    public static int narrowphase(int m, int o) {
+        int[] x = PhysicsStore.x;
+        int[] y = PhysicsStore.y;
+        int[] w = PhysicsStore.w;
+        int[] h = PhysicsStore.h;
+        int[] vx = PhysicsStore.vx;
+        int[] vy = PhysicsStore.vy;
+        int[] flags = PhysicsStore.flags;
+
+        int hit = NO_HIT;
+
+        // If moving vertically will cause collision
+        if (y[m] + h[m] + vy[m] >= y[o] && y[m] + vy[m] < y[o] + h[o] && x[m] + w[m] > x[o] && x[m] < x[o] + w[o]) {
+            y[m] = y[o] - h[m];
+            flags[m] |= PhysicsStore.COLLIDING_VERTICALLY;
+            hit |= VERTICAL_HIT;
+        }
+
+        // If moving horizontally will cause collision
+        if (x[m] + w[m] + vx[m] > x[o] && x[m] + vx[m] < x[o] + w[o] && y[m] + h[m] > y[o] && y[m] < y[o] + h[o]) {
+            flags[m] |= PhysicsStore.COLLIDING_HORIZONTALLY;
+            hit |= HORIZONTAL_HIT;
+        }
+
+        return hit;
+    }
+
+    /**
+     * Turn a narrowphase result into a collision event
+     * @param GUID of the mover
+     * @param hit result of the narrowphase
+     * @return collision event, or null if nothing was hit
+     */
+    public static CollisionEvent toEvent(int GUID, int hit) {
+        if ((hit & HORIZONTAL_HIT) != 0) {
+            return new CollisionEvent(EventManager.nextFrame(), EventManager.offset(), GUID, "HORIZONTAL");
+        } else if ((hit & VERTICAL_HIT) != 0) {
+            return new CollisionEvent(EventManager.nextFrame(), EventManager.offset(), GUID, "VERTICAL");
+        }
+
+        return null;
+    }
+
+    /**
+     * Splits a range of slots in half until it is small enough, then simulates it.
+     */
+    private static class StepTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int worldWidth;
+        private final int from;
+        private final int to;
+        private final int count;
+
+        StepTask(int worldWidth, int from, int to, int count) {
+            this.worldWidth = worldWidth;
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SLOTS_PER_TASK) {
+                simulate( worldWidth, from, to, count );
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll( new StepTask(worldWidth, from, middle, count), new StepTask(worldWidth, middle, to, count) );
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import events.PositionUpdateEvent;
+
+/**
+ * CompactReplayReader reads a replay written by CompactReplayWriter, one update at a time.
+ *
+ * Only one block is in memory at a time; it is inflated when reading gets to it,
+ * and the moves in it are added to its keyframe to get positions back.
+ *
+ * Seeking looks up the last block that starts at or before the tick in the index, reads its keyframe,
+ * and adds up the moves from there to the tick. That is at most one keyframe interval of moves
+ * however long the replay is.
+ *
+ * @author jeremypark
+ *
+ */
+public class CompactReplayReader implements SeekableReplayStream {
+    private final RandomAccessFile in;
+    private final boolean compressed;
+    private final Inflater inflater;
+
+    // entity table
+    private final int[] GUIDs;
+
+    // where each game object is, and if it has been anywhere yet
+    private final int[] lastX;
+    private final int[] lastY;
+    private final boolean[] known;
+
+    // first tick and place in the file of every block
+    private final long[] blockTicks;
+    private final long[] blockOffsets;
+
+    // place in the file of the next block
+    private long nextBlock;
+
+    // block being read, null before the first
+    private ByteBuffer block = null;
+
+    // tick being read, and its updates left
+    private long tick = 0;
+    private long updatesLeft = 0;
+
+    // if the last block has been read
+    private boolean finished = false;
+
+    /**
+     * Open a compact replay
+     * @param file written by a CompactReplayWriter
+     */
+    public CompactReplayReader(File file) throws IOException {
+        in = new RandomAccessFile(file, "r");
+
+        if (in.readInt() != CompactReplayWriter.MAGIC || in.readInt() != CompactReplayWriter.VERSION) {
+            in.close();
+            throw new IOException( "Not a compact replay: " + file );
+        }
+
+        compressed = (in.readInt() & CompactReplayWriter.COMPRESSED) != 0;
+        inflater = compressed ? new Inflater() : null;
+
+        GUIDs = new int[in.readInt()];
+
+        for (int i = 0; i < GUIDs.length; i++) {
+            GUIDs[i] = in.readInt();
+        }
+
+        lastX = new int[GUIDs.length];
+        lastY = new int[GUIDs.length];
+        known = new boolean[GUIDs.length];
+
+        // blocks start right after the header
+        nextBlock = in.getFilePointer();
+
+        // the index is at the end
+        in.seek( in.length() - 8 );
+        in.seek( in.readLong() );
+
+        blockTicks = new long[in.readInt()];
+        blockOffsets = new long[blockTicks.length];
+
+        for (int i = 0; i < blockTicks.length; i++) {
+            blockTicks[i] = in.readLong();
+            blockOffsets[i] = in.readLong();
+        }
+    }
+
+    /**
+     * Get the next position update
+     * @return position update stamped with its replay tick, null after the last one
+     */
+    @Override
+    public synchronized PositionUpdateEvent next() throws IOException {
+        while (true) {
+            if (updatesLeft > 0) {
+                int entity = readUpdate();
+                return new PositionUpdateEvent(tick, tick + 1, lastX[entity], lastY[entity], GUIDs[entity]);
+            }
+
+            if (block != null && block.hasRemaining()) {
+                readTick();
+            }
+            else if (!readBlock()) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Jump to a tick: next() gives the updates from that tick on
+     * @param target tick on the replay timeline
+     * @return where every game object is at the start of that tick, stamped with it
+     */
+    @Override
+    public synchronized List<PositionUpdateEvent> seek(long target) throws IOException {
+        // last block starting at or before the tick
+        int index = Arrays.binarySearch( blockTicks, target );
+
+        if (index < 0) {
+            index = Math.max( -index - 2, 0 );
+        }
+
+        // read its keyframe
+        block = null;
+        updatesLeft = 0;
+        finished = blockOffsets.length == 0;
+
+        if (!finished) {
+            nextBlock = blockOffsets[index];
+            readBlock();
+        }
+
+        // add up the moves until the tick
+        while (true) {
+            if (updatesLeft > 0) {
+                readUpdate();
+            }
+            else if (block != null && block.hasRemaining()) {
+                readTick();
+
+                if (tick >= target) {
+                    break;
+                }
+            }
+            else if (!readBlock()) {
+                break;
+            }
+        }
+
+        // the keyframe for the tick
+        ArrayList<PositionUpdateEvent> state = new ArrayList<PositionUpdateEvent>();
+
+        for (int i = 0; i < known.length; i++) {
+            if (known[i]) {
+                state.add( new PositionUpdateEvent(target, target + 1, lastX[i], lastY[i], GUIDs[i]) );
+            }
+        }
+
+        return state;
+    }
+
+    /**
+     * @return GUIDs of every game object in the replay
+     */
+    public int[] getGUIDs() {
+        return GUIDs.clone();
+    }
+
+    /**
+     * @return first tick of every block, the ticks seeking jumps to
+     */
+    public long[] getKeyframeTicks() {
+        return blockTicks.clone();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (inflater != null) {
+            inflater.end();
+        }
+
+        in.close();
+    }
+
+    /**
+     * Read a tick's header
+     */
+    private void readTick() {
+        tick += Varint.readSigned( block );
+        updatesLeft = Varint.read( block );
+    }
+
+    /**
+     * Read an update and move its game object
+     * @return entity that moved
+     */
+    private int readUpdate() {
+        int entity = (int) Varint.read( block );
+
+        lastX[entity] += (int) Varint.readSigned( block );
+        lastY[entity] += (int) Varint.readSigned( block );
+        known[entity] = true;
+        updatesLeft--;
+
+        return entity;
+    }
+
+    /**
+     * Read the next block, inflating it if it is compressed, and its keyframe
+     * @return false after the last block
+     */
+    private boolean readBlock() throws IOException {
+        if (finished) {
+            return false;
+        }
+
+        in.seek( nextBlock );
+        int length = in.readInt();
+
+        if (length == 0) {
+            finished = true;
+            return false;
+        }
+
+        int storedLength = in.readInt();
+
+        if (length < 0 || storedLength < 0 || storedLength > in.length() - in.getFilePointer()) {
+            throw new IOException( "Broken replay block" );
+        }
+
+        byte[] stored = new byte[storedLength];
+        in.readFully( stored );
+        nextBlock += 8 + stored.length;
+
+        if (compressed) {
+            byte[] raw = new byte[length];
+
+            inflater.setInput( stored );
+
+            try {
+                int inflated = 0;
+
+                while (inflated < length && !inflater.finished()) {
+                    int count = inflater.inflate( raw, inflated, length - inflated );
+
+                    // the stored bytes ran out (or want a dictionary) before the block did
+                    if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new IOException( "Broken replay block" );
+                    }
+
+                    inflated += count;
+                }
+
+                if (inflated < length) {
+                    throw new IOException( "Broken replay block" );
+                }
+            }
+            catch (DataFormatException e) {
+                throw new IOException( "Broken replay block", e );
+            }
+            finally {
+                inflater.reset();
+            }
+
+            block = ByteBuffer.wrap( raw );
+        } else {
+            block = ByteBuffer.wrap( stored );
+        }
+
+        // ticks count from 0 in every block
+        tick = 0;
+        updatesLeft = 0;
+
+        // start from the keyframe, game objects not in it haven't moved from 0
+        Arrays.fill( known, false );
+        Arrays.fill( lastX, 0 );
+        Arrays.fill( lastY, 0 );
+        long count = Varint.read( block );
+
+        for (long i = 0; i < count; i++) {
+            int entity = (int) Varint.read( block );
+
+            lastX[entity] = (int) Varint.readSigned( block );
+            lastY[entity] = (int) Varint.readSigned( block );
+            known[entity] = true;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,350 @@
+package replay;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.zip.Deflater;
+
+import events.PositionUpdateEvent;
+
+/**
+ * CompactReplayWriter writes a replay in a small format meant for keeping.
+ *
+ * The header lists every game object in the replay once (the entity table), so records
+ * name a game object by its place in the table. After that come the ticks, in blocks of about 64 KB.
+ * Each tick is written as how many ticks it is after the last one and how many updates it has,
+ * and each update as how far the game object moved since its last update. All of these are
+ * varints, so an update of a box that moved a few pixels is three bytes instead of the
+ * recorder's 24. Blocks can be compressed with a Deflater on top of that.
+ *
+ * Every block starts with a keyframe: where every game object seen so far is. Moves in the block
+ * are counted from there, and its ticks from 0, so each block can be read on its own. A new block is
+ * started at least every keyframe interval, and the end of the file has an index of the first tick
+ * of every block and where it is. Seeking only reads the index and the one block the tick is in.
+ *
+ * File layout (big endian):
+ *
+ *     header:   magic (int), version (int), flags (int), entity count (int), GUIDs (int each)
+ *     blocks:   length (int), stored length (int), stored bytes ... then a length of 0
+ *     index:    block count (int), then per block: first tick (long), offset in the file (long)
+ *     trailer:  offset of the index (long)
+ *     block:    keyframe count (varint), then per game object: entity (varint), x (signed varint), y (signed varint)
+ *               then ticks: tick delta (signed varint), update count (varint),
+ *               then per update: entity (varint), x delta (signed varint), y delta (signed varint)
+ *
+ * I read this to help me make this class:
+ * https://docs.oracle.com/javase/8/docs/api/java/util/zip/Deflater.html
+ *
+ * @author jeremypark
+ *
+ */
+public class CompactReplayWriter implements Closeable {
+    // "RPLZ"
+    static final int MAGIC = 0x52504c5a;
+    static final int VERSION = 2;
+
+    // flags
+    static final int COMPRESSED = 1;
+
+    // bytes of ticks in a block before it is written out
+    static final int BLOCK_SIZE = 1 << 16;
+
+    // most ticks in a block, so seeking never reads further than this (about 10 seconds of client ticks)
+    public static final long KEYFRAME_INTERVAL = 300;
+
+    // bytes before the first GUID in the header
+    static final int HEADER_SIZE = 16;
+
+    private final DataOutputStream out;
+    private final boolean compressed;
+    private final Deflater deflater;
+    private final long keyframeInterval;
+
+    // bytes written so far
+    private long written;
+
+    // place of each GUID in the entity table
+    private final HashMap<Integer, Integer> entities = new HashMap<Integer, Integer>();
+
+    // where each game object was at its last update, and if it has had one
+    private final int[] lastX;
+    private final int[] lastY;
+    private final boolean[] known;
+
+    // first tick and place in the file of every block
+    private final ArrayList<Long> blockTicks = new ArrayList<Long>();
+    private final ArrayList<Long> blockOffsets = new ArrayList<Long>();
+
+    // ticks waiting to be written, and the tick being filled
+    private final ByteArrayOutputStream block = new ByteArrayOutputStream(BLOCK_SIZE + 1024);
+    private final ByteArrayOutputStream updates = new ByteArrayOutputStream();
+    private final byte[] buffer = new byte[BLOCK_SIZE];
+
+    // tick being filled, the last tick in the block, and updates in the tick
+    private long tick = 0;
+    private long blockTick = 0;
+    private int updateCount = 0;
+
+    // first tick in the block, and how many ticks it has
+    private long firstTick = 0;
+    private int ticksInBlock = 0;
+
+    private boolean closed = false;
+
+    /**
+     * Start a compact replay
+     * @param file to write
+     * @param GUIDs of every game object in the replay
+     * @param compressed if blocks should be deflated
+     */
+    public CompactReplayWriter(File file, int[] GUIDs, boolean compressed) throws IOException {
+        this(file, GUIDs, compressed, KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Start a compact replay
+     * @param file to write
+     * @param GUIDs of every game object in the replay
+     * @param compressed if blocks should be deflated
+     * @param keyframeInterval most ticks between keyframes
+     */
+    public CompactReplayWriter(File file, int[] GUIDs, boolean compressed, long keyframeInterval) throws IOException {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException( "Keyframe interval has to be at least one tick" );
+        }
+
+        this.compressed = compressed;
+        this.deflater = compressed ? new Deflater(Deflater.BEST_COMPRESSION) : null;
+        this.keyframeInterval = keyframeInterval;
+
+        lastX = new int[GUIDs.length];
+        lastY = new int[GUIDs.length];
+        known = new boolean[GUIDs.length];
+
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        out.writeInt( MAGIC );
+        out.writeInt( VERSION );
+        out.writeInt( compressed ? COMPRESSED : 0 );
+        out.writeInt( GUIDs.length );
+
+        for (int i = 0; i < GUIDs.length; i++) {
+            entities.put( GUIDs[i], i );
+            out.writeInt( GUIDs[i] );
+        }
+
+        written = HEADER_SIZE + 4L * GUIDs.length;
+        writeKeyframe();
+    }
+
+    /**
+     * Write where a game object is. Ticks have to come in order.
+     * @param tick on the replay timeline
+     * @param GUID of the game object, has to be in the entity table
+     * @param x position
+     * @param y position
+     */
+    public void write(long tick, int GUID, int x, int y) throws IOException {
+        Integer entity = entities.get( GUID );
+
+        if (entity == null) {
+            throw new IllegalArgumentException( "GUID " + GUID + " is not in the entity table" );
+        }
+
+        // a new tick
+        if (updateCount > 0 && tick != this.tick) {
+            endTick();
+
+            // time for a keyframe
+            if (ticksInBlock > 0 && tick - firstTick >= keyframeInterval) {
+                writeBlock();
+            }
+        }
+
+        this.tick = tick;
+
+        Varint.write( updates, entity );
+        Varint.writeSigned( updates, x - lastX[entity] );
+        Varint.writeSigned( updates, y - lastY[entity] );
+
+        lastX[entity] = x;
+        lastY[entity] = y;
+        known[entity] = true;
+        updateCount++;
+    }
+
+    /**
+     * Write the rest and finish the file
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        if (updateCount > 0) {
+            endTick();
+        }
+
+        writeBlock();
+        out.writeInt( 0 );
+        written += 4;
+
+        // index of every block, and where to find it
+        long indexOffset = written;
+        out.writeInt( blockTicks.size() );
+
+        for (int i = 0; i < blockTicks.size(); i++) {
+            out.writeLong( blockTicks.get( i ) );
+            out.writeLong( blockOffsets.get( i ) );
+        }
+
+        out.writeLong( indexOffset );
+        out.close();
+
+        if (deflater != null) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Turn a recording from a ReplayRecorder into a compact replay
+     * @param recording made by a ReplayRecorder
+     * @param archive file to write
+     * @param compressed if blocks should be deflated
+     */
+    public static void compact(File recording, File archive, boolean compressed) throws IOException {
+        // first time through, find every game object for the entity table
+        LinkedHashSet<Integer> GUIDs = new LinkedHashSet<Integer>();
+        ReplayReader reader = new ReplayReader(recording);
+        PositionUpdateEvent update;
+
+        try {
+            while ((update = reader.next()) != null) {
+                GUIDs.add( update.getGUID() );
+            }
+        }
+        finally {
+            reader.close();
+        }
+
+        int[] table = new int[GUIDs.size()];
+        int i = 0;
+
+        for (Integer GUID : GUIDs) {
+            table[i++] = GUID;
+        }
+
+        // second time through, write it
+        CompactReplayWriter writer = new CompactReplayWriter(archive, table, compressed);
+        reader = new ReplayReader(recording);
+
+        try {
+            while ((update = reader.next()) != null) {
+                writer.write( update.getTimeStamp(), update.getGUID(), update.getX(), update.getY() );
+            }
+        }
+        finally {
+            reader.close();
+            writer.close();
+        }
+    }
+
+    /**
+     * Add the tick that was being filled to the block, and write the block out if it is full
+     */
+    private void endTick() throws IOException {
+        if (ticksInBlock == 0) {
+            firstTick = tick;
+        }
+
+        ticksInBlock++;
+
+        Varint.writeSigned( block, tick - blockTick );
+        Varint.write( block, updateCount );
+        updates.writeTo( block );
+
+        blockTick = tick;
+        updates.reset();
+        updateCount = 0;
+
+        if (block.size() >= BLOCK_SIZE) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Write the block out, deflated if the replay is compressed, and start a new one
+     */
+    private void writeBlock() throws IOException {
+        if (ticksInBlock == 0) {
+            return;
+        }
+
+        blockTicks.add( firstTick );
+        blockOffsets.add( written );
+
+        byte[] raw = block.toByteArray();
+
+        if (compressed) {
+            ByteArrayOutputStream stored = new ByteArrayOutputStream(raw.length / 4);
+
+            deflater.setInput( raw );
+            deflater.finish();
+
+            while (!deflater.finished()) {
+                int length = deflater.deflate( buffer );
+                stored.write( buffer, 0, length );
+            }
+
+            deflater.reset();
+
+            out.writeInt( raw.length );
+            out.writeInt( stored.size() );
+            stored.writeTo( out );
+            written += 8 + stored.size();
+        } else {
+            out.writeInt( raw.length );
+            out.writeInt( raw.length );
+            out.write( raw );
+            written += 8 + raw.length;
+        }
+
+        // the next block starts from here
+        block.reset();
+        blockTick = 0;
+        ticksInBlock = 0;
+        writeKeyframe();
+    }
+
+    /**
+     * Start a block with where every game object is
+     */
+    private void writeKeyframe() {
+        int count = 0;
+
+        for (int i = 0; i < known.length; i++) {
+            if (known[i]) {
+                count++;
+            }
+        }
+
+        Varint.write( block, count );
+
+        for (int i = 0; i < known.length; i++) {
+            if (known[i]) {
+                Varint.write( block, i );
+                Varint.writeSigned( block, lastX[i] );
+                Varint.writeSigned( block, lastY[i] );
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package replay;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * InstantReplay always keeps the last few seconds of the game, so they can be replayed at any moment
+ * (like a kill cam) without anyone having started a recording.
+ *
+ * It is a ring buffer of frames: every tick that has updates takes the next frame, and once all the
+ * frames are used the oldest is written over. The storage is flat arrays (a frame's updates sit next
+ * to each other), and recording only writes into them, so the memory it uses doesn't grow with how
+ * long the game goes on. A frame keeps one update per game object: a second update of the same
+ * game object in a tick writes over the first. When a tick has more game objects than a frame holds,
+ * every frame is made twice as big, so the buffer grows with the number of game objects, and no one is dropped.
+ *
+ * snapshot() writes the frames out, oldest first, as a recording that plays like any other.
+ *
+ * I read this to help me make this class:
+ * https://en.wikipedia.org/wiki/Circular_buffer
+ *
+ * @author jeremypark
+ *
+ */
+public class InstantReplay {
+    // frames kept, and updates each frame holds
+    private final int capacity;
+    private int updatesPerFrame;
+
+    // tick and update count of each frame
+    private final long[] ticks;
+    private final int[] counts;
+
+    // updates, frame by frame
+    private int[] GUIDs;
+    private int[] xs;
+    private int[] ys;
+
+    // newest frame, and how many frames are in use
+    private int newest = -1;
+    private int frames = 0;
+
+    /**
+     * Make an instant replay buffer
+     * @param capacity ticks to keep
+     * @param updatesPerFrame updates a tick has room for to start with
+     */
+    public InstantReplay(int capacity, int updatesPerFrame) {
+        if (capacity < 1 || updatesPerFrame < 1) {
+            throw new IllegalArgumentException( "Instant replay needs room for at least one update" );
+        }
+
+        this.capacity = capacity;
+        this.updatesPerFrame = updatesPerFrame;
+
+        ticks = new long[capacity];
+        counts = new int[capacity];
+
+        GUIDs = new int[capacity * updatesPerFrame];
+        xs = new int[capacity * updatesPerFrame];
+        ys = new int[capacity * updatesPerFrame];
+    }
+
+    /**
+     * Keep where a game object is
+     * @param tick it was there
+     * @param GUID of the game object
+     * @param x position
+     * @param y position
+     */
+    public synchronized void record(long tick, int GUID, int x, int y) {
+        // a new tick takes the next frame, over the oldest
+        if (frames == 0 || tick != ticks[newest]) {
+            newest = (newest + 1) % capacity;
+            ticks[newest] = tick;
+            counts[newest] = 0;
+
+            if (frames < capacity) {
+                frames++;
+            }
+        }
+
+        int first = newest * updatesPerFrame;
+        int count = counts[newest];
+
+        // the same game object again in this tick, keep its latest place
+        for (int i = first; i < first + count; i++) {
+            if (GUIDs[i] == GUID) {
+                xs[i] = x;
+                ys[i] = y;
+                return;
+            }
+        }
+
+        if (count == updatesPerFrame) {
+            grow();
+        }
+
+        int update = newest * updatesPerFrame + count;
+
+        GUIDs[update] = GUID;
+        xs[update] = x;
+        ys[update] = y;
+        counts[newest] = count + 1;
+    }
+
+    /**
+     * Make every frame twice as big, for a tick with more game objects than fit
+     */
+    private void grow() {
+        int size = updatesPerFrame * 2;
+        int[] newGUIDs = new int[capacity * size];
+        int[] newXs = new int[capacity * size];
+        int[] newYs = new int[capacity * size];
+
+        for (int frame = 0; frame < capacity; frame++) {
+            System.arraycopy( GUIDs, frame * updatesPerFrame, newGUIDs, frame * size, counts[frame] );
+            System.arraycopy( xs, frame * updatesPerFrame, newXs, frame * size, counts[frame] );
+            System.arraycopy( ys, frame * updatesPerFrame, newYs, frame * size, counts[frame] );
+        }
+
+        updatesPerFrame = size;
+        GUIDs = newGUIDs;
+        xs = newXs;
+        ys = newYs;
+    }
+
+    /**
+     * Write what is in the buffer to a recording, starting at tick 0
+     * @param file to record to
+     * @return closed recorder of the file
+     */
+    public synchronized ReplayRecorder snapshot(File file) throws IOException {
+        ReplayRecorder recorder = new ReplayRecorder(file);
+
+        try {
+            int oldest = (newest - frames + 1 + capacity) % capacity;
+            long firstTick = ticks[oldest];
+
+            for (int i = 0; i < frames; i++) {
+                int frame = (oldest + i) % capacity;
+
+                for (int j = 0; j < counts[frame]; j++) {
+                    int update = frame * updatesPerFrame + j;
+                    recorder.record( ticks[frame] - firstTick, GUIDs[update], xs[update], ys[update] );
+                }
+            }
+        }
+        finally {
+            recorder.close();
+        }
+
+        return recorder;
+    }
+}
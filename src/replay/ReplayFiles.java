@@ -0,0 +1,39 @@
+package replay;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * ReplayFiles opens any replay file with the right reader, going by its magic number.
+ *
+ * @author jeremypark
+ *
+ */
+public class ReplayFiles {
+    /**
+     * Open a replay
+     * @param file made by a ReplayRecorder or a CompactReplayWriter
+     * @return stream of its events
+     */
+    public static ReplayStream open(File file) throws IOException {
+        int magic;
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+
+        try {
+            magic = in.readInt();
+        }
+        finally {
+            in.close();
+        }
+
+        if (magic == ReplayRecorder.MAGIC) {
+            return new ReplayReader(file);
+        } else if (magic == CompactReplayWriter.MAGIC) {
+            return new CompactReplayReader(file);
+        }
+
+        throw new IOException( "Not a replay: " + file );
+    }
+}
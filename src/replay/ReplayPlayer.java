@@ -0,0 +1,189 @@
+package replay;
+
+import java.io.IOException;
+import java.util.List;
+
+import events.EndReplayEvent;
+import events.EventManager;
+import events.GameTimer;
+import events.PositionUpdateEvent;
+import events.TimerService;
+
+/**
+ * ReplayPlayer plays a recording back through the EventManager.
+ *
+ * Instead of putting the whole recording on the event queue at once, a timer reads it a tick
+ * at a time and only raises the events that are about to be handled. The event queue and the heap
+ * only ever hold a tick's worth of the replay. After the last event it raises an EndReplayEvent.
+ *
+ * If the recording is seekable (an archived replay), it can jump to any tick: every game object
+ * is put where it was at that tick, and playing carries on from there.
+ *
+ * @author jeremypark
+ *
+ */
+public class ReplayPlayer implements Runnable {
+    // ticks ahead of the event timeline to raise events
+    private static final long LOOKAHEAD = 1;
+
+    // recording being played
+    private final ReplayStream stream;
+
+    // event timeline's time when the replay started
+    private long startTime;
+
+    // next event to raise, read ahead of time
+    private PositionUpdateEvent pending = null;
+
+    // timer that feeds the events
+    private GameTimer timer = null;
+
+    private boolean finished = false;
+
+    /**
+     * Make a player for a recording
+     * @param stream recording to play
+     */
+    public ReplayPlayer(ReplayStream stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * Start playing at the event timeline's current time
+     */
+    public void start() {
+        startTime = EventManager.eventTimeline.getTime();
+        pending = read();
+
+        // raise the first tick's events right away, then one tick at a time
+        run();
+
+        if (!isFinished()) {
+            timer = TimerService.scheduleRepeating( 1, 1, this );
+        }
+    }
+
+    /**
+     * Raise every event due by the next tick
+     */
+    @Override
+    public synchronized void run() {
+        if (finished) {
+            return;
+        }
+
+        long until = EventManager.eventTimeline.getTime() + LOOKAHEAD;
+        PositionUpdateEvent last = null;
+
+        while (pending != null && pending.getTimeStamp() + startTime <= until) {
+            // remake the timestamp
+            pending.setTimeToHandle( pending.getTimeStamp() + startTime );
+
+            // raise the event again!
+            EventManager.addEvent( pending );
+            last = pending;
+            pending = read();
+        }
+
+        if (pending == null) {
+            // event to designate the restoration of the original speed
+            if (last != null) {
+                EventManager.addEvent( new EndReplayEvent(last.getTimeStamp(), last.getTimeToHandle()) );
+            } else {
+                EventManager.addEvent( new EndReplayEvent(until, until) );
+            }
+
+            stop();
+        }
+    }
+
+    /**
+     * Jump to a tick of the recording
+     * @param tick on the replay timeline
+     * @return false if the recording can't seek, or has finished
+     */
+    public synchronized boolean seek(long tick) {
+        if (finished || !(stream instanceof SeekableReplayStream)) {
+            return false;
+        }
+
+        tick = Math.max( tick, 0 );
+
+        List<PositionUpdateEvent> state;
+
+        try {
+            state = ((SeekableReplayStream) stream).seek( tick );
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+
+        // the tick plays now
+        long now = EventManager.eventTimeline.getTime();
+        startTime = now - tick;
+
+        // put everything where it was
+        for (int i = 0; i < state.size(); i++) {
+            PositionUpdateEvent position = state.get( i );
+
+            position.setTimeToHandle( now );
+            EventManager.addEvent( position );
+        }
+
+        pending = read();
+        run();
+
+        return true;
+    }
+
+    /**
+     * @return tick of the recording that is playing
+     */
+    public synchronized long getTick() {
+        return EventManager.eventTimeline.getTime() - startTime;
+    }
+
+    /**
+     * Stop playing and close the recording
+     */
+    public synchronized void stop() {
+        if (finished) {
+            return;
+        }
+
+        if (timer != null) {
+            timer.cancel();
+        }
+
+        pending = null;
+        finished = true;
+
+        try {
+            stream.close();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return if the whole recording has been raised, or playing was stopped
+     */
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Read the next event, or null when the recording is done or can't be read
+     */
+    private PositionUpdateEvent read() {
+        try {
+            return stream.next();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
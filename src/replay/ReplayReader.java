@@ -0,0 +1,93 @@
+package replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import events.PositionUpdateEvent;
+
+/**
+ * ReplayReader reads a recording made by ReplayRecorder, one record at a time.
+ *
+ * Like the recorder it maps the file a region at a time, so reading a long recording
+ * doesn't load it onto the heap. It reads the records there were when it was opened.
+ *
+ * @author jeremypark
+ *
+ */
+public class ReplayReader implements ReplayStream {
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+
+    // records in the file, and records read so far
+    private final long count;
+    private long read = 0;
+
+    // region being read
+    private MappedByteBuffer region = null;
+
+    /**
+     * Open a recording
+     * @param file made by a ReplayRecorder
+     */
+    public ReplayReader(File file) throws IOException {
+        raf = new RandomAccessFile(file, "r");
+        channel = raf.getChannel();
+
+        MappedByteBuffer header = channel.map( FileChannel.MapMode.READ_ONLY, 0, ReplayRecorder.HEADER_SIZE );
+
+        if (header.getInt() != ReplayRecorder.MAGIC || header.getInt() != ReplayRecorder.VERSION) {
+            close();
+            throw new IOException( "Not a replay: " + file );
+        }
+
+        count = header.getLong();
+    }
+
+    /**
+     * Get the next position update
+     * @return position update stamped with its replay tick, null after the last one
+     */
+    @Override
+    public synchronized PositionUpdateEvent next() throws IOException {
+        while (read < count) {
+            // map the next region when this one is done
+            if (read % ReplayRecorder.REGION_RECORDS == 0) {
+                long start = ReplayRecorder.HEADER_SIZE + (read / ReplayRecorder.REGION_RECORDS) * ReplayRecorder.REGION_SIZE;
+                long records = Math.min( ReplayRecorder.REGION_RECORDS, count - read );
+
+                region = channel.map( FileChannel.MapMode.READ_ONLY, start, records * ReplayRecorder.RECORD_SIZE );
+            }
+
+            long tick = region.getLong();
+            int GUID = region.getInt();
+            int x = region.getInt();
+            int y = region.getInt();
+            int type = region.getInt();
+
+            read++;
+
+            if (type == ReplayRecorder.POSITION) {
+                return new PositionUpdateEvent(tick, tick + 1, x, y, GUID);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return number of records in the recording
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        region = null;
+        channel.close();
+        raf.close();
+    }
+}
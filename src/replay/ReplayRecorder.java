@@ -0,0 +1,143 @@
+package replay;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * ReplayRecorder writes a recording straight to a file as the game runs.
+ *
+ * Every position update is one fixed size record (tick, GUID, x, y, type) appended to a
+ * memory-mapped region of the file. When a region fills up the next one is mapped, so the
+ * operating system pages the recording out to disk and the heap holds nothing but the recorder,
+ * however long the session is. The header keeps the record count, so a recording
+ * can be read while it is still going, and survives the game quitting.
+ *
+ * File layout (big endian):
+ *
+ *     header:  magic (int), version (int), record count (long)
+ *     records: tick (long), GUID (int), x (int), y (int), type (int)
+ *
+ * I read this to help me make this class:
+ * https://docs.oracle.com/javase/8/docs/api/java/nio/MappedByteBuffer.html
+ *
+ * @author jeremypark
+ *
+ */
+public class ReplayRecorder implements Closeable {
+    // "RPLY"
+    static final int MAGIC = 0x52504c59;
+    static final int VERSION = 1;
+
+    // bytes
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 24;
+
+    // where the record count is in the header
+    static final int COUNT_POSITION = 8;
+
+    // record types
+    static final int POSITION = 1;
+
+    // records per mapped region, records never cross regions
+    static final int REGION_RECORDS = 1 << 16;
+    static final long REGION_SIZE = (long) RECORD_SIZE * REGION_RECORDS;
+
+    // file being written
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+
+    // header and the region being filled
+    private final MappedByteBuffer header;
+    private MappedByteBuffer region = null;
+
+    // records written
+    private long count = 0;
+
+    private boolean closed = false;
+
+    /**
+     * Start a new recording, replacing the file if it is there
+     * @param file to record to
+     */
+    public ReplayRecorder(File file) throws IOException {
+        this.file = file;
+
+        raf = new RandomAccessFile(file, "rw");
+        raf.setLength( 0 );
+        channel = raf.getChannel();
+
+        header = channel.map( FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE );
+        header.putInt( MAGIC );
+        header.putInt( VERSION );
+        header.putLong( 0 );
+    }
+
+    /**
+     * Record where a game object is
+     * @param tick on the replay timeline
+     * @param GUID of the game object
+     * @param x position
+     * @param y position
+     */
+    public synchronized void record(long tick, int GUID, int x, int y) throws IOException {
+        if (closed) {
+            return;
+        }
+
+        // map the next region when this one is full
+        if (count % REGION_RECORDS == 0) {
+            region = channel.map( FileChannel.MapMode.READ_WRITE, HEADER_SIZE + (count / REGION_RECORDS) * REGION_SIZE, REGION_SIZE );
+        }
+
+        region.putLong( tick );
+        region.putInt( GUID );
+        region.putInt( x );
+        region.putInt( y );
+        region.putInt( POSITION );
+
+        count++;
+        header.putLong( COUNT_POSITION, count );
+    }
+
+    /**
+     * @return number of records written
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @return file being recorded to
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Finish the recording: write it out and cut the file down to the records in it
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        if (region != null) {
+            region.force();
+        }
+
+        header.force();
+        region = null;
+
+        channel.truncate( HEADER_SIZE + count * RECORD_SIZE );
+        channel.close();
+        raf.close();
+    }
+}
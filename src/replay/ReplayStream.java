@@ -0,0 +1,20 @@
+package replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import events.PositionUpdateEvent;
+
+/**
+ * This interface defines reading a recorded replay one event at a time.
+ *
+ * Events come out in the order they were recorded, time stamped with the replay timeline,
+ * so only one is in memory at a time however long the recording is.
+ *
+ * @author jeremypark
+ *
+ */
+public interface ReplayStream extends Closeable {
+    // get the next recorded event, null after the last one
+    public PositionUpdateEvent next() throws IOException;
+}
@@ -0,0 +1,17 @@
+package replay;
+
+import java.io.IOException;
+import java.util.List;
+
+import events.PositionUpdateEvent;
+
+/**
+ * This interface defines a replay stream that can jump to any tick.
+ *
+ * @author jeremypark
+ *
+ */
+public interface SeekableReplayStream extends ReplayStream {
+    // jump to a tick, next() carries on from there; gives where every game object is at that tick
+    public List<PositionUpdateEvent> seek(long tick) throws IOException;
+}
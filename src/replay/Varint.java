@@ -0,0 +1,64 @@
+package replay;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Varint packs numbers into as few bytes as they need, for the compact replay format.
+ *
+ * Each byte holds 7 bits of the number, lowest first, and its top bit says if another byte follows.
+ * Small numbers (like how far a box moved in a tick) take a single byte.
+ * Signed numbers are zigzagged first (0, -1, 1, -2, 2... become 0, 1, 2, 3, 4...) so small
+ * negative numbers stay small too.
+ *
+ * I read this to help me make this class:
+ * https://developers.google.com/protocol-buffers/docs/encoding
+ *
+ * @author jeremypark
+ *
+ */
+class Varint {
+    /**
+     * Write a number that is never negative
+     */
+    static void write(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write( (int) ((value & 0x7F) | 0x80) );
+            value >>>= 7;
+        }
+
+        out.write( (int) value );
+    }
+
+    /**
+     * Write a number that can be negative
+     */
+    static void writeSigned(ByteArrayOutputStream out, long value) {
+        write( out, (value << 1) ^ (value >> 63) );
+    }
+
+    /**
+     * Read a number written by write
+     */
+    static long read(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        int b;
+
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        return value;
+    }
+
+    /**
+     * Read a number written by writeSigned
+     */
+    static long readSigned(ByteBuffer in) {
+        long value = read( in );
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,21 @@
+package scripting;
+
+/**
+ * Behaviour is something that updates every game object of one type at once.
+ *
+ * A behaviour can be a script (ScriptBehaviour) or plain Java, and either one gets the same
+ * compact arrays in a ScriptBatch. Which one a type of game object uses is picked in the level data
+ * by the BehaviourRegistry, so a script that is hot and stable can be swapped for a Java class
+ * without changing the game object.
+ *
+ * @author jeremypark
+ *
+ */
+public interface Behaviour {
+    /**
+     * Update every member of a batch
+     * @param entities positions, speeds and bounds of the members
+     * @return false if the update was deferred to a later frame
+     */
+    boolean updateAll(ScriptBatch entities);
+}
@@ -0,0 +1,89 @@
+package scripting;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * BehaviourRegistry picks the behaviour for each type of game object, and keeps one batch per type.
+ *
+ * The level data is a properties file from a game object type (its class name, like MovingPlatform)
+ * to a behaviour: a .js file runs as a ScriptBehaviour, anything else is the name of a Java class
+ * that implements Behaviour. Promoting a script to Java is a one line change in that file.
+ *
+ * @author jeremypark
+ *
+ */
+public class BehaviourRegistry {
+    // behaviour name for each game object type, from the level data
+    private static final Properties behaviourNames = new Properties();
+
+    // batch for each game object type
+    private static final ConcurrentHashMap<String, ScriptBatch> batches = new ConcurrentHashMap<String, ScriptBatch>();
+
+    /**
+     * Read which behaviour each game object type uses
+     * @param fileName properties file of type=behaviour
+     */
+    public static void load(String fileName) {
+        try (InputStream in = new FileInputStream(fileName)) {
+            behaviourNames.load( in );
+        }
+        catch (IOException iox) {
+            iox.printStackTrace();
+        }
+    }
+
+    /**
+     * Get the batch for a type of game object, making it the first time
+     * @param type name of the game object type, e.g. "MovingPlatform"
+     * @param defaultBehaviour behaviour to use if the level data doesn't name one
+     * @return batch that updates every game object of that type
+     */
+    public static ScriptBatch getBatch(String type, String defaultBehaviour) {
+        ScriptBatch batch = batches.get( type );
+
+        if (batch == null) {
+            String name = behaviourNames.getProperty( type, defaultBehaviour ).trim();
+            Behaviour behaviour;
+
+            try {
+                behaviour = create( name );
+            }
+            catch (ReflectiveOperationException | ClassCastException e) {
+                // a typo in the level data shouldn't stop the game, fall back on the default
+                e.printStackTrace();
+                behaviour = new ScriptBehaviour(defaultBehaviour);
+            }
+
+            batches.putIfAbsent( type, new ScriptBatch(behaviour) );
+            batch = batches.get( type );
+        }
+
+        return batch;
+    }
+
+    /**
+     * Make a behaviour from its name
+     * @param name a .js file, or the name of a Java class implementing Behaviour
+     * @return new behaviour
+     */
+    public static Behaviour create(String name) throws ReflectiveOperationException {
+        if (name.endsWith( ".js" )) {
+            return new ScriptBehaviour(name);
+        }
+
+        return (Behaviour) Class.forName( name ).getDeclaredConstructor().newInstance();
+    }
+
+    /**
+     * Run every batch once. Call this once per frame, after the game objects update.
+     */
+    public static void updateAll() {
+        for (ScriptBatch batch : batches.values()) {
+            batch.updateAll();
+        }
+    }
+}
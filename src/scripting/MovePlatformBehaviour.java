@@ -0,0 +1,35 @@
+package scripting;
+
+/**
+ * MovePlatformBehaviour is move_platform.js written in Java.
+ *
+ * Platforms move up and down between their bounds, turning around when they pass one.
+ * It does exactly what the script does, without going through the script engine.
+ *
+ * @author jeremypark
+ *
+ */
+public class MovePlatformBehaviour implements Behaviour {
+
+    @Override
+    public boolean updateAll(ScriptBatch entities) {
+        int[] y = entities.y;
+        int[] ySpeed = entities.ySpeed;
+        int[] upperBound = entities.upperBound;
+        int[] lowerBound = entities.lowerBound;
+
+        for (int i = 0; i < entities.count; i++) {
+            if (y[i] < upperBound[i]) {
+                ySpeed[i] = ySpeed[i] * -1;
+                y[i] = upperBound[i];
+            } else if (y[i] > lowerBound[i]) {
+                ySpeed[i] = ySpeed[i] * -1;
+                y[i] = lowerBound[i];
+            }
+
+            y[i] = y[i] + ySpeed[i];
+        }
+
+        return true;
+    }
+}
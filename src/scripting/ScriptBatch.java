@@ -0,0 +1,157 @@
+package scripting;
+
+import java.util.Arrays;
+
+import abstract_components.Movable;
+import game_objects.GameObject;
+
+/**
+ * ScriptBatch runs one behaviour for every game object that uses it, in a single call.
+ *
+ * Instead of calling into the behaviour once per game object, the batch copies the members'
+ * positions, speeds and bounds into compact int arrays, calls the behaviour's updateAll(entities)
+ * once, and copies the results back. Crossing from Java into a script then costs the same
+ * for two platforms as for two hundred.
+ *
+ * Inside a script, the batch is bound as "entities":
+ * entities.count, entities.x, entities.y, entities.xSpeed, entities.ySpeed,
+ * entities.upperBound and entities.lowerBound.
+ *
+ * @author jeremypark
+ *
+ */
+public class ScriptBatch {
+    // starting number of members
+    private static final int INITIAL_CAPACITY = 16;
+
+    // script or Java class that updates the members
+    private final Behaviour behaviour;
+
+    // game objects in the batch, and the components that hold their speeds
+    private GameObject[] members = new GameObject[INITIAL_CAPACITY];
+    private Movable[] movers = new Movable[INITIAL_CAPACITY];
+
+    /**
+     * Arrays the script reads and writes, indexed by member
+     */
+    public int count = 0;
+    public int[] x = new int[INITIAL_CAPACITY];
+    public int[] y = new int[INITIAL_CAPACITY];
+    public int[] xSpeed = new int[INITIAL_CAPACITY];
+    public int[] ySpeed = new int[INITIAL_CAPACITY];
+    public int[] upperBound = new int[INITIAL_CAPACITY];
+    public int[] lowerBound = new int[INITIAL_CAPACITY];
+
+    /**
+     * Make a batch for a behaviour
+     * @param behaviour that updates the members
+     */
+    public ScriptBatch(Behaviour behaviour) {
+        this.behaviour = behaviour;
+    }
+
+    /**
+     * Add a game object to the batch
+     * @param obj game object the script moves
+     * @param mover component that holds its speed
+     * @param upper smallest y the script should allow
+     * @param lower largest y the script should allow
+     */
+    public synchronized void add(GameObject obj, Movable mover, int upper, int lower) {
+        if (count == members.length) {
+            grow();
+        }
+
+        members[count] = obj;
+        movers[count] = mover;
+        xSpeed[count] = mover.getXSpeed();
+        ySpeed[count] = mover.getYSpeed();
+        upperBound[count] = upper;
+        lowerBound[count] = lower;
+        count++;
+    }
+
+    /**
+     * Take a game object out of the batch
+     * @param obj game object to remove
+     */
+    public synchronized void remove(GameObject obj) {
+        for (int i = 0; i < count; i++) {
+            if (members[i] == obj) {
+                // move the last member into the gap
+                int last = --count;
+                members[i] = members[last];
+                movers[i] = movers[last];
+                xSpeed[i] = xSpeed[last];
+                ySpeed[i] = ySpeed[last];
+                upperBound[i] = upperBound[last];
+                lowerBound[i] = lowerBound[last];
+                members[last] = null;
+                movers[last] = null;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Run the behaviour's updateAll once for every member
+     */
+    public synchronized void updateAll() {
+        if (count == 0) {
+            return;
+        }
+
+        // gather
+        for (int i = 0; i < count; i++) {
+            x[i] = members[i].getX();
+            y[i] = members[i].getY();
+        }
+
+        // over the scripting budget (try again next frame) or turned off, leave the members where they are
+        if (!behaviour.updateAll( this )) {
+            return;
+        }
+
+        // scatter
+        for (int i = 0; i < count; i++) {
+            members[i].setX( x[i] );
+            members[i].setY( y[i] );
+            movers[i].setXSpeed( xSpeed[i] );
+            movers[i].setYSpeed( ySpeed[i] );
+        }
+    }
+
+    /**
+     * Let this batch be deferred when scripting is over budget, or make it always run
+     * @param critical true if it has to run every frame
+     */
+    public void setCritical(boolean critical) {
+        // only scripts are held to the scripting budget
+        if (behaviour instanceof ScriptBehaviour) {
+            ((ScriptBehaviour) behaviour).setCritical( critical );
+        }
+    }
+
+    /**
+     * @return behaviour that updates the members
+     */
+    public Behaviour getBehaviour() {
+        return behaviour;
+    }
+
+    /**
+     * Double the size of every array
+     */
+    private void grow() {
+        int capacity = members.length * 2;
+
+        members = Arrays.copyOf( members, capacity );
+        movers = Arrays.copyOf( movers, capacity );
+        x = Arrays.copyOf( x, capacity );
+        y = Arrays.copyOf( y, capacity );
+        xSpeed = Arrays.copyOf( xSpeed, capacity );
+        ySpeed = Arrays.copyOf( ySpeed, capacity );
+        upperBound = Arrays.copyOf( upperBound, capacity );
+        lowerBound = Arrays.copyOf( lowerBound, capacity );
+    }
+}
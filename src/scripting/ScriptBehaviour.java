@@ -0,0 +1,44 @@
+package scripting;
+
+/**
+ * ScriptBehaviour is a behaviour written as a script with an updateAll(entities) function.
+ *
+ * The script runs in its own ScriptInstance, so it is timed, held to the scripting budget
+ * and hot reloaded like any other script.
+ *
+ * @author jeremypark
+ *
+ */
+public class ScriptBehaviour implements Behaviour {
+    // the script, in its own context
+    private final ScriptInstance script;
+
+    /**
+     * Make a behaviour from a script file
+     * @param scriptName file name of a script with an updateAll(entities) function
+     */
+    public ScriptBehaviour(String scriptName) {
+        script = new ScriptInstance(scriptName);
+    }
+
+    @Override
+    public boolean updateAll(ScriptBatch entities) {
+        script.bindArgument( "entities", entities );
+        return script.invoke( "updateAll(entities)" );
+    }
+
+    /**
+     * Let this script be deferred when scripting is over budget, or make it always run
+     * @param critical true if it has to run every frame
+     */
+    public void setCritical(boolean critical) {
+        script.setCritical( critical );
+    }
+
+    /**
+     * @return file name of the script
+     */
+    public String getScriptName() {
+        return script.getScriptName();
+    }
+}
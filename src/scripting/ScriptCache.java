@@ -0,0 +1,266 @@
+package scripting;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+
+/**
+ * ScriptCache keeps the compiled version of every script file an engine has loaded.
+ *
+ * A file is read and parsed the first time it is asked for; after that the compiled script is handed back
+ * without touching the disk. Compiled scripts are also kept by a hash of their source,
+ * so two files with the same contents share one compile, and a reload that didn't change anything is free.
+ * When a file is recompiled, its old version is dropped once no file uses it, so editing a script
+ * over and over doesn't pile up compiled scripts.
+ *
+ * With hot reloading on, a ScriptWatcher publishes the source of edited files, and get() compiles
+ * the new version the next time it is asked for the script. That is on the thread that owns the engine,
+ * the only thread that ever compiles or runs scripts on it.
+ *
+ * @author jeremypark
+ *
+ */
+public class ScriptCache {
+    // engine the scripts are compiled for
+    private final ScriptEngine engine;
+    private final Compilable compiler;
+
+    // compiled script for each file name
+    private final ConcurrentHashMap<String, CachedScript> scriptsByPath = new ConcurrentHashMap<String, CachedScript>();
+
+    // compiled script for each source hash
+    private final ConcurrentHashMap<String, CompiledScript> scriptsByHash = new ConcurrentHashMap<String, CompiledScript>();
+
+    // short snippets of code (like "update()") compiled from a string
+    private final ConcurrentHashMap<String, CompiledScript> snippets = new ConcurrentHashMap<String, CompiledScript>();
+
+    // reloads scripts when their files change, null until hot reloading is turned on
+    private volatile ScriptWatcher watcher = null;
+
+    /**
+     * Make a cache for an engine
+     * @param engine that compiles the scripts, has to be Compilable
+     */
+    public ScriptCache(ScriptEngine engine) {
+        this.engine = engine;
+        this.compiler = (Compilable) engine;
+    }
+
+    /**
+     * @return engine the scripts are compiled for
+     */
+    public ScriptEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Get the compiled version of a script file, compiling it the first time
+     * @param scriptName file name of the script
+     * @return compiled script
+     */
+    public CompiledScript get(String scriptName) throws IOException, ScriptException {
+        CachedScript cached = scriptsByPath.get( scriptName );
+        ScriptWatcher watching = watcher;
+
+        if (cached == null) {
+            reload( scriptName );
+            cached = scriptsByPath.get( scriptName );
+
+            // first time we see this file, so start watching it
+            if (watching != null) {
+                watching.watch( scriptName );
+            }
+        } else if (watching != null) {
+            // the file was edited: compile it here, on this engine's own thread
+            ScriptWatcher.Version latest = watching.getVersion( scriptName );
+
+            if (latest != null && latest != cached.version) {
+                cached = update( scriptName, cached, latest );
+            }
+        }
+
+        return cached.compiled;
+    }
+
+    /**
+     * Turn on hot reloading: have a watcher recompile cached scripts when their files change
+     * @param watcher that watches the script files
+     */
+    public synchronized void setWatcher(ScriptWatcher watcher) {
+        for (String scriptName : scriptsByPath.keySet()) {
+            watcher.watch( scriptName );
+        }
+
+        this.watcher = watcher;
+    }
+
+    /**
+     * Read a script file again and recompile it if its contents changed
+     * @param scriptName file name of the script
+     * @return if the compiled script changed
+     */
+    public synchronized boolean reload(String scriptName) throws IOException, ScriptException {
+        byte[] source = Files.readAllBytes( Paths.get( scriptName ) );
+        String hash = hash( source );
+
+        CachedScript cached = scriptsByPath.get( scriptName );
+
+        // nothing changed, keep what we have
+        if (cached != null && cached.hash.equals( hash )) {
+            return false;
+        }
+
+        CompiledScript compiled = compile( hash, new String(source, StandardCharsets.UTF_8) );
+        swap( scriptName, cached, new CachedScript(hash, compiled, cached == null ? null : cached.version) );
+        return true;
+    }
+
+    /**
+     * Move a script on to the version the watcher published, keeping the old one if the new one doesn't compile
+     */
+    private synchronized CachedScript update(String scriptName, CachedScript cached, ScriptWatcher.Version latest) {
+        // another call got here first
+        CachedScript current = scriptsByPath.get( scriptName );
+
+        if (current != cached) {
+            return current;
+        }
+
+        CompiledScript compiled = cached.compiled;
+
+        if (!latest.hash.equals( cached.hash )) {
+            try {
+                compiled = compile( latest.hash, latest.source );
+            }
+            catch (ScriptException se) {
+                // a half-written file or a typo: keep running the last good version, and don't try this one again
+                if (!latest.reported) {
+                    latest.reported = true;
+                    System.out.println( "Could not reload " + scriptName + ": " + se.getMessage() );
+                }
+
+                CachedScript kept = new CachedScript(cached.hash, cached.compiled, latest);
+                scriptsByPath.put( scriptName, kept );
+                return kept;
+            }
+
+            // give a script that was turned off for running too long another chance
+            ScriptGuard.clearFailure( scriptName );
+        }
+
+        CachedScript next = new CachedScript(latest.hash, compiled, latest);
+        swap( scriptName, cached, next );
+        return next;
+    }
+
+    /**
+     * Compile a source, or share the compile of the same source
+     */
+    private CompiledScript compile(String hash, String source) throws ScriptException {
+        CompiledScript compiled = scriptsByHash.get( hash );
+
+        if (compiled == null) {
+            compiled = compiler.compile( source );
+            scriptsByHash.put( hash, compiled );
+        }
+
+        return compiled;
+    }
+
+    /**
+     * Swap in a new version in one write, and forget the old one unless another file still has the same source
+     */
+    private void swap(String scriptName, CachedScript old, CachedScript next) {
+        scriptsByPath.put( scriptName, next );
+
+        if (old != null && !old.hash.equals( next.hash ) && !inUse( old.hash )) {
+            scriptsByHash.remove( old.hash );
+        }
+    }
+
+    /**
+     * Check if any script file is on the version with this hash
+     * @param hash of the source
+     * @return if a file uses it
+     */
+    private boolean inUse(String hash) {
+        for (CachedScript cached : scriptsByPath.values()) {
+            if (cached.hash.equals( hash )) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Get a compiled snippet of code, compiling it the first time
+     * @param source code to compile, e.g. "update()"
+     * @return compiled snippet
+     */
+    public CompiledScript snippet(String source) throws ScriptException {
+        CompiledScript compiled = snippets.get( source );
+
+        if (compiled == null) {
+            compiled = compiler.compile( source );
+            snippets.put( source, compiled );
+        }
+
+        return compiled;
+    }
+
+    /**
+     * Check if a script file has been compiled
+     * @param scriptName file name of the script
+     * @return if it is in the cache
+     */
+    public boolean contains(String scriptName) {
+        return scriptsByPath.containsKey( scriptName );
+    }
+
+    /**
+     * Hash the source of a script
+     * @param source bytes of the script file
+     * @return hex SHA-256 of the source
+     */
+    public static String hash(byte[] source) {
+        try {
+            byte[] digest = MessageDigest.getInstance( "SHA-256" ).digest( source );
+            StringBuilder hex = new StringBuilder();
+
+            for (byte b : digest) {
+                hex.append( String.format( "%02x", b ) );
+            }
+
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException nsae) {
+            // every JVM has SHA-256
+            throw new IllegalStateException( nsae );
+        }
+    }
+
+    /**
+     * A compiled script, the hash of the source it came from, and the watcher's version it has caught up with
+     */
+    private static class CachedScript {
+        final String hash;
+        final CompiledScript compiled;
+        final ScriptWatcher.Version version;
+
+        CachedScript(String hash, CompiledScript compiled, ScriptWatcher.Version version) {
+            this.hash = hash;
+            this.compiled = compiled;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package scripting;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+
+/**
+ * ScriptEnginePool gives every thread that runs scripts its own JavaScript engine.
+ *
+ * A script engine can only run one script at a time, so with one engine for the whole process
+ * every script waits on every other. Here each thread gets an engine and a ScriptCache the first time
+ * it asks, and scripts are compiled once per engine, since a compiled script belongs to the engine
+ * that compiled it. Rooms or workers on different threads then run their scripts on different cores.
+ *
+ * A ScriptInstance makes its bindings on the engine of the thread that calls it, wherever it was made.
+ *
+ * The pool only keeps weak references to the caches, so when a thread exits, its engine and
+ * compiled scripts can be collected with it instead of living on for the rest of the game.
+ *
+ * I read the javadocs of ThreadLocal and WeakReference to help me make this class:
+ * https://docs.oracle.com/javase/8/docs/api/java/lang/ThreadLocal.html
+ * https://docs.oracle.com/javase/8/docs/api/java/lang/ref/WeakReference.html
+ *
+ * @author jeremypark
+ *
+ */
+public class ScriptEnginePool {
+    // makes the engines
+    private static final ScriptEngineManager manager = new ScriptEngineManager();
+
+    // engine and compiled scripts of each thread
+    private static final ThreadLocal<ScriptCache> caches = new ThreadLocal<ScriptCache>() {
+        @Override
+        protected ScriptCache initialValue() {
+            return addCache( new ScriptCache(manager.getEngineByName( "JavaScript" )) );
+        }
+    };
+
+    // every cache still in use, so hot reloading reaches all of them; a thread's own cache is what keeps it alive
+    private static final ArrayList<WeakReference<ScriptCache>> allCaches = new ArrayList<WeakReference<ScriptCache>>();
+
+    // publishes edited scripts for every cache to pick up, null until hot reloading is turned on
+    private static ScriptWatcher watcher = null;
+
+    /**
+     * @return this thread's engine
+     */
+    public static ScriptEngine getEngine() {
+        return caches.get().getEngine();
+    }
+
+    /**
+     * @return compiled scripts for this thread's engine
+     */
+    public static ScriptCache getCache() {
+        return caches.get();
+    }
+
+    /**
+     * Keep track of a cache, e.g. one for an engine made outside the pool
+     * @param cache to track
+     * @return the same cache
+     */
+    public static synchronized ScriptCache addCache(ScriptCache cache) {
+        prune();
+        allCaches.add( new WeakReference<ScriptCache>(cache) );
+
+        if (watcher != null) {
+            cache.setWatcher( watcher );
+        }
+
+        return cache;
+    }
+
+    /**
+     * Recompile scripts in every engine when their files change
+     */
+    public static synchronized void enableHotReload() throws IOException {
+        if (watcher != null) {
+            return;
+        }
+
+        watcher = new ScriptWatcher();
+
+        for (WeakReference<ScriptCache> reference : allCaches) {
+            ScriptCache cache = reference.get();
+
+            if (cache != null) {
+                cache.setWatcher( watcher );
+            }
+        }
+
+        watcher.start();
+    }
+
+    /**
+     * @return number of engines still in use
+     */
+    public static synchronized int size() {
+        prune();
+        return allCaches.size();
+    }
+
+    /**
+     * Forget the caches of threads that have exited
+     */
+    private static void prune() {
+        Iterator<WeakReference<ScriptCache>> iterator = allCaches.iterator();
+
+        while (iterator.hasNext()) {
+            if (iterator.next().get() == null) {
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package scripting;
+
+import events.Event;
+import events.EventHandler;
+import events.EventManager;
+
+/**
+ * ScriptEventHandler lets a script handle events itself.
+ *
+ * It registers with the EventManager for one type of event, and optionally only for events about
+ * one game object (by GUID). Each event goes straight from EventManager.handleEvents into the script's
+ * onEvent(event) function: the script is loaded and its arguments bound once, and the call is compiled once,
+ * so handling an event doesn't read, bind or compile anything.
+ *
+ * @author jeremypark
+ *
+ */
+public class ScriptEventHandler implements EventHandler {
+    // handle events about every game object
+    public static final int ANY_GUID = -1;
+
+    // file name of the script with the onEvent function
+    private final String scriptName;
+
+    // only handle events about this game object, or ANY_GUID
+    private final int GUID;
+
+    // type of event handled
+    private final String type;
+
+    // the script, bound to the engine of the thread that handles the events
+    private final ScriptInstance script;
+
+    /**
+     * Handle every event of a type with a script
+     * @param scriptName file name of a script with an onEvent(event) function
+     * @param type of event, e.g. "SPAWN"
+     */
+    public ScriptEventHandler(String scriptName, String type) {
+        this(scriptName, type, ANY_GUID);
+    }
+
+    /**
+     * Handle the events of a type about one game object with a script
+     * @param scriptName file name of a script with an onEvent(event) function
+     * @param type of event, e.g. "SPAWN"
+     * @param GUID of the game object, or ANY_GUID
+     */
+    public ScriptEventHandler(String scriptName, String type, int GUID) {
+        this.scriptName = scriptName;
+        this.GUID = GUID;
+        this.type = type;
+        this.script = new ScriptInstance(scriptName);
+
+        EventManager.register( this, type );
+    }
+
+    /**
+     * Bind an object to a name in the script, e.g. the game object it handles events for
+     * @param name to use in the script
+     * @param obj to bind
+     */
+    public void bindArgument(String name, Object obj) {
+        script.bindArgument( name, obj );
+    }
+
+    /**
+     * Stop handling events, e.g. when the game object leaves the world, so the EventManager lets go of the script
+     */
+    public void unregister() {
+        EventManager.unregister( this, type );
+    }
+
+    /**
+     * Call the script's onEvent function
+     */
+    @Override
+    public synchronized void onEvent(Event e) {
+        // not about our game object
+        if (GUID != ANY_GUID && e.getGUID() != GUID) {
+            return;
+        }
+
+        script.bindArgument( "event", e );
+        script.invoke( "onEvent(event)" );
+    }
+
+    /**
+     * @return file name of the script
+     */
+    public String getScriptName() {
+        return scriptName;
+    }
+}
@@ -0,0 +1,271 @@
+package scripting;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ScriptGuard keeps a runaway script from freezing the game loop.
+ *
+ * Script calls run right on the thread that makes them, on that thread's engine. With a time limit set,
+ * every call gets a deadline, and a watchdog thread looks over the calls that are running. When one
+ * goes past its deadline the watchdog flags it, and the next time the script calls guard.check()
+ * (bound in every script's scope) it is stopped and the call returns. Checking only reads that flag,
+ * but it is still a call out to Java, so a loop that might run long should do it every few hundred passes:
+ *
+ *     for (var i = 0; i < entities.count; i++) {
+ *         if ((i & 255) === 0) {
+ *             guard.check();
+ *         }
+ *         ...
+ *     }
+ *
+ * A JavaScript loop can't be interrupted from outside, so the script has to stop itself this way;
+ * since it stops on its own thread, its engine is never left to another thread while it is still running.
+ *
+ * Every call that goes over the limit is a strike against its script. One slow call (the first call
+ * compiling, or a garbage collection) is forgiven once a call finishes in time, but a script that goes
+ * over STRIKES times in a row is turned off and does nothing from then on.
+ * A failed script is turned back on when its file is edited and it reloads.
+ *
+ * @author jeremypark
+ *
+ */
+public class ScriptGuard {
+    // calls in a row that go over the limit before a script is turned off
+    public static final int STRIKES = 3;
+
+    // a call this many times over the limit is reported as stuck
+    private static final int STUCK_FACTOR = 10;
+
+    // the guard scripts call check() on
+    private static final ScriptGuard guard = new ScriptGuard();
+
+    // longest a script call may take in nanoseconds, 0 to run scripts with no limit
+    private static volatile long timeout = 0;
+
+    // scripts that went over the limit too many times
+    private static final Set<String> failed = ConcurrentHashMap.newKeySet();
+
+    // calls in a row each script has gone over the limit
+    private static final ConcurrentHashMap<String, Integer> strikes = new ConcurrentHashMap<String, Integer>();
+
+    // guarded call running on each thread
+    private static final ConcurrentHashMap<Thread, Call> running = new ConcurrentHashMap<Thread, Call>();
+
+    // same, for the thread's own checks without a map lookup
+    private static final ThreadLocal<Call> current = new ThreadLocal<Call>();
+
+    // thread that flags calls that run too long
+    private static Thread watchdog = null;
+
+    /**
+     * @return the guard scripts use
+     */
+    public static ScriptGuard getGuard() {
+        return guard;
+    }
+
+    /**
+     * Run a script call within the time limit, on this thread
+     * @param scriptName file name of the script, gets a strike if it runs too long (null to only stop this call)
+     * @param call to run
+     * @return false if the call was stopped for running too long, or threw
+     */
+    public static boolean run(String scriptName, Runnable call) {
+        // no limit, or already in a guarded call (a script calling a script)
+        if (timeout <= 0 || current.get() != null) {
+            call.run();
+            return true;
+        }
+
+        Thread thread = Thread.currentThread();
+        Call guarded = new Call(scriptName, System.nanoTime() + timeout);
+
+        current.set( guarded );
+        running.put( thread, guarded );
+        startWatchdog();
+
+        boolean finished = false;
+
+        try {
+            call.run();
+            finished = true;
+        }
+        catch (Overrun o) {
+            // the script saw the flag and stopped itself
+        }
+        catch (RuntimeException re) {
+            re.printStackTrace();
+        }
+        finally {
+            running.remove( thread );
+            current.remove();
+        }
+
+        if (guarded.overrun) {
+            strike( scriptName );
+        } else if (scriptName != null && !strikes.isEmpty()) {
+            strikes.remove( scriptName );
+        }
+
+        return finished && !guarded.stopped;
+    }
+
+    /**
+     * Called by scripts in loops that might run long: stops the script if its call went over the time limit
+     */
+    public void check() {
+        Call call = current.get();
+
+        if (call != null && call.overrun) {
+            call.stopped = true;
+            throw new Overrun(call.scriptName);
+        }
+    }
+
+    /**
+     * Check if a script has been turned off for running too long
+     * @param scriptName file name of the script
+     * @return if it failed
+     */
+    public static boolean hasFailed(String scriptName) {
+        return !failed.isEmpty() && failed.contains( scriptName );
+    }
+
+    /**
+     * Turn a failed script back on, e.g. after it was fixed
+     * @param scriptName file name of the script
+     */
+    public static void clearFailure(String scriptName) {
+        strikes.remove( scriptName );
+
+        if (failed.remove( scriptName )) {
+            System.out.println( "Script " + scriptName + " turned back on" );
+        }
+    }
+
+    /**
+     * Set the time limit for a script call
+     * @param nanos limit in nanoseconds, 0 to run scripts with no limit
+     */
+    public static void setTimeout(long nanos) {
+        timeout = nanos;
+    }
+
+    /**
+     * @return time limit for a script call in nanoseconds, 0 if there is none
+     */
+    public static long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Count a call that went over the limit, and turn its script off after too many in a row
+     */
+    private static void strike(String scriptName) {
+        long limit = TimeUnit.NANOSECONDS.toMillis( timeout );
+
+        if (scriptName == null) {
+            System.out.println( "Script call ran longer than " + limit + " ms" );
+            return;
+        }
+
+        Integer count = strikes.get( scriptName );
+        count = count == null ? 1 : count + 1;
+        strikes.put( scriptName, count );
+
+        if (count < STRIKES) {
+            System.out.println( "Script " + scriptName + " ran longer than " + limit + " ms (" + count + " of " + STRIKES + ")" );
+            return;
+        }
+
+        strikes.remove( scriptName );
+        failed.add( scriptName );
+        System.out.println( "Script " + scriptName + " ran longer than " + limit + " ms " + STRIKES + " times in a row, turning it off" );
+    }
+
+    /**
+     * Start the watchdog the first time a call is guarded
+     */
+    private static synchronized void startWatchdog() {
+        if (watchdog != null) {
+            return;
+        }
+
+        watchdog = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        }, "script-watchdog");
+
+        watchdog.setDaemon( true );
+        watchdog.start();
+    }
+
+    /**
+     * Flag every call past its deadline, a few times per time limit
+     */
+    private static void watch() {
+        while (true) {
+            long limit = timeout;
+
+            try {
+                TimeUnit.NANOSECONDS.sleep( Math.max( limit / 4, TimeUnit.MILLISECONDS.toNanos( 1 ) ) );
+            }
+            catch (InterruptedException ie) {
+                return;
+            }
+
+            long now = System.nanoTime();
+
+            for (Call call : running.values()) {
+                if (!call.overrun && now - call.deadline > 0) {
+                    call.overrun = true;
+                }
+
+                // a script that never checks can't be stopped, say so once
+                if (!call.reported && limit > 0 && now - call.deadline > limit * (STUCK_FACTOR - 1)) {
+                    call.reported = true;
+                    System.out.println( "Script " + (call.scriptName == null ? "call" : call.scriptName) + " has run for over "
+                            + TimeUnit.NANOSECONDS.toMillis( limit * STUCK_FACTOR ) + " ms without calling guard.check()" );
+                }
+            }
+        }
+    }
+
+    /**
+     * A guarded call that is running
+     */
+    private static class Call {
+        final String scriptName;
+        final long deadline;
+
+        // set by the watchdog once the deadline has passed
+        volatile boolean overrun = false;
+
+        // if the script stopped itself, and if it was reported as stuck
+        volatile boolean stopped = false;
+        volatile boolean reported = false;
+
+        Call(String scriptName, long deadline) {
+            this.scriptName = scriptName;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * Thrown into a script that checks after going over its time limit, to unwind it
+     */
+    public static class Overrun extends RuntimeException {
+        /**
+         *
+         */
+        private static final long serialVersionUID = 1L;
+
+        Overrun(String scriptName) {
+            super( "Script " + (scriptName == null ? "call" : scriptName) + " ran too long" );
+        }
+    }
+}
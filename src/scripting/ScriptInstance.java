@@ -0,0 +1,191 @@
+package scripting;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import javax.script.SimpleScriptContext;
+
+/**
+ * ScriptInstance is one game object's copy of a script.
+ *
+ * It has its own bindings and script context, so the names it binds (like "obj") and the
+ * functions the script defines don't clash with any other object running the same script.
+ * The bindings are made on the engine of the thread that calls the script, the first time it is called,
+ * so it doesn't matter which thread made the instance. If a different thread calls it later,
+ * it moves to that thread's engine: the arguments are bound again and the script is run into a new context,
+ * and an engine is never used by two threads.
+ * After that, executing it is just a call to its function.
+ * Every call is timed by the ScriptProfiler, and an instance that isn't critical
+ * waits for a later frame when the frame's scripting budget is used up.
+ * Calls run under the ScriptGuard, which binds "guard" so a long loop can stop itself with guard.check()
+ * when it runs over its time limit, and turns off a script that keeps running over.
+ *
+ * @author jeremypark
+ *
+ */
+public class ScriptInstance {
+    // file name of the script
+    private final String scriptName;
+
+    // arguments bound so far, bound again whenever the instance moves to another engine
+    private final HashMap<String, Object> arguments = new HashMap<String, Object>();
+
+    // thread whose engine the bindings belong to, null until the first call
+    private Thread owner = null;
+
+    // compiled scripts of the engine this instance runs on
+    private ScriptCache cache = null;
+
+    // this instance's own global scope
+    private Bindings bindings = null;
+
+    // context that points the script at those bindings
+    private ScriptContext context = null;
+
+    // compiled version of the script that has been run into the context
+    private CompiledScript loaded = null;
+
+    // critical scripts always run, others can be deferred when scripting is over budget
+    private boolean critical = true;
+
+    /**
+     * Make an instance of a script with its own bindings
+     * @param scriptName file name of the script
+     */
+    public ScriptInstance(String scriptName) {
+        this.scriptName = scriptName;
+
+        // lets the script wait for frames or events
+        arguments.put( "scheduler", ScriptScheduler.getScheduler() );
+
+        // lets a long loop stop itself when the call runs over its time limit
+        arguments.put( "guard", ScriptGuard.getGuard() );
+    }
+
+    /**
+     * Bind an object to a name in this instance's scope only
+     * @param name to use in the script
+     * @param obj to bind
+     */
+    public synchronized void bindArgument(String name, Object obj) {
+        arguments.put( name, obj );
+
+        if (bindings != null) {
+            bindings.put( name, obj );
+        }
+    }
+
+    /**
+     * Call the script's "update" function
+     */
+    public void executeScript() {
+        invoke( "update()" );
+    }
+
+    /**
+     * Run a call (like "update()") in this instance's scope
+     * @param call code to run, compiled once and cached
+     * @return false if the call was deferred to stay within the scripting budget,
+     * or didn't run because the script was turned off for running too long
+     */
+    public boolean invoke(final String call) {
+        // a runaway script does nothing until it is fixed
+        if (ScriptGuard.hasFailed( scriptName )) {
+            return false;
+        }
+
+        if (!critical && ScriptProfiler.defer( scriptName )) {
+            return false;
+        }
+
+        long startTime = ScriptProfiler.start();
+
+        try {
+            return ScriptGuard.run( scriptName, new Runnable() {
+                @Override
+                public void run() {
+                    evaluate( call );
+                }
+            } );
+        }
+        finally {
+            ScriptProfiler.stop( scriptName, startTime );
+        }
+    }
+
+    /**
+     * Run a call in this instance's scope, on this thread's engine
+     */
+    private synchronized void evaluate(String call) {
+        try {
+            bind();
+            load();
+            cache.snippet( call ).eval( context );
+        }
+        catch (ScriptException se) {
+            // the script stopped itself for running too long, let the guard know
+            if (se.getCause() instanceof ScriptGuard.Overrun) {
+                throw (ScriptGuard.Overrun) se.getCause();
+            }
+
+            se.printStackTrace();
+        }
+        catch (IOException iox) {
+            iox.printStackTrace();
+        }
+    }
+
+    /**
+     * Let this script be deferred when scripting is over budget, or make it always run
+     * @param critical true if it has to run every time it is called
+     */
+    public void setCritical(boolean critical) {
+        this.critical = critical;
+    }
+
+    /**
+     * Make the bindings on this thread's engine, if they aren't there already
+     */
+    private void bind() {
+        if (owner == Thread.currentThread()) {
+            return;
+        }
+
+        owner = Thread.currentThread();
+        cache = ScriptManager.getCache();
+
+        ScriptEngine engine = cache.getEngine();
+        bindings = engine.createBindings();
+        bindings.putAll( arguments );
+        context = new SimpleScriptContext();
+        context.setBindings( bindings, ScriptContext.ENGINE_SCOPE );
+
+        // the script has to be run into the new context
+        loaded = null;
+    }
+
+    /**
+     * Run the script's top level into the context if it hasn't been yet,
+     * or if a newer compiled version is in the cache.
+     */
+    private void load() throws ScriptException, IOException {
+        CompiledScript current = cache.get( scriptName );
+
+        if (current != loaded) {
+            current.eval( context );
+            loaded = current;
+        }
+    }
+
+    /**
+     * @return file name of the script
+     */
+    public String getScriptName() {
+        return scriptName;
+    }
+}
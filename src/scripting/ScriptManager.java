@@ -1,5 +1,6 @@
 package scripting;
 
+import javax.script.CompiledScript;
 import javax.script.Invocable;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
@@ -10,6 +11,13 @@ import javax.script.ScriptException;
  *
  * Removed the executeScript function for multiple parameters, as this was not needed for my implementation.
  *
+ * Scripts are compiled once and kept in a ScriptCache, so loading a script on every frame
+ * only runs its (already parsed) top level again instead of reading and parsing the file.
+ * With hot reloading on, a ScriptWatcher notices edited files and the cache recompiles them the next time they are loaded.
+ *
+ * The engine here is shared by the loadScript/executeScript calls, so only one thread uses it at a time.
+ * Script instances use the engine of their own thread from the ScriptEnginePool, so they can run on more than one core.
+ *
  * Purpose: to create and manage a JavaScript engine.
  */
 public class ScriptManager {
@@ -20,20 +28,44 @@ public class ScriptManager {
     /* The Invocable reference to the engine. */
     private static Invocable js_invocable = (Invocable) js_engine;
 
+    /* Compiled scripts for the engine, by file name and content hash. */
+    private static ScriptCache js_cache = ScriptEnginePool.addCache(new ScriptCache(js_engine));
+
+    /* Last script loaded into the engine, for timing executeScript. */
+    private static String js_loaded = null;
+
+    /**
+     * Get this thread's engine, e.g. to create bindings for a ScriptInstance.
+     */
+    public static ScriptEngine getEngine() {
+        return ScriptEnginePool.getEngine();
+    }
+
+    /**
+     * Get the compiled script cache for this thread's engine.
+     */
+    public static ScriptCache getCache() {
+        return ScriptEnginePool.getCache();
+    }
+
     /**
      * Used to bind the provided object to the name in the scope of the scripts
      * being executed by this engine.
      */
-    public static void bindArgument(String name, Object obj) {
+    public synchronized static void bindArgument(String name, Object obj) {
         js_engine.put(name,obj);
     }
 
     /**
      * Will load the script source from the provided filename.
+     * The file is only read and compiled the first time; after that the cached version is run.
      */
-    public static void loadScript(String script_name) {
+    public synchronized static void loadScript(String script_name) {
+        long start_time = ScriptProfiler.start();
+
         try {
-            js_engine.eval(new java.io.FileReader(script_name));
+            js_cache.get(script_name).eval();
+            js_loaded = script_name;
         }
         catch(ScriptException se) {
             se.printStackTrace();
@@ -41,21 +73,91 @@ public class ScriptManager {
         catch(java.io.IOException iox) {
             iox.printStackTrace();
         }
+        finally {
+            ScriptProfiler.stop(script_name, start_time);
+        }
     }
 
     /**
-     * Will invoke the "update" function of the script loaded by this engine
-     * without any parameters.
+     * Get the compiled version of a script, compiling it if it isn't cached yet.
+     * Returns null if the script can't be read or compiled.
+     */
+    public static CompiledScript getCompiledScript(String script_name) {
+        try {
+            return js_cache.get(script_name);
+        }
+        catch(ScriptException se) {
+            se.printStackTrace();
+        }
+        catch(java.io.IOException iox) {
+            iox.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * Read a script file again and recompile it if it changed.
+     * Returns true if a new version was compiled.
      */
-    public static void executeScript() {
+    public synchronized static boolean reloadScript(String script_name) {
         try {
-            js_invocable.invokeFunction("update");
+            return js_cache.reload(script_name);
         }
         catch(ScriptException se) {
             se.printStackTrace();
         }
-        catch(NoSuchMethodException nsme) {
-            nsme.printStackTrace();
+        catch(java.io.IOException iox) {
+            iox.printStackTrace();
+        }
+
+        return false;
+    }
+
+    /**
+     * Recompile scripts when their files are edited, so designers can change them while the game runs.
+     */
+    public static void enableHotReload() {
+        try {
+            ScriptEnginePool.enableHotReload();
+        }
+        catch(java.io.IOException iox) {
+            iox.printStackTrace();
+        }
+    }
+
+    /**
+     * Will invoke the "update" function of the script loaded by this engine
+     * without any parameters, within the ScriptGuard's time limit.
+     */
+    public synchronized static void executeScript() {
+        String script_name = js_loaded == null ? "update" : js_loaded;
+
+        // a runaway script does nothing until it is fixed
+        if (ScriptGuard.hasFailed(script_name)) {
+            return;
+        }
+
+        long start_time = ScriptProfiler.start();
+
+        try {
+            ScriptGuard.run(script_name, new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        js_invocable.invokeFunction("update");
+                    }
+                    catch(ScriptException se) {
+                        se.printStackTrace();
+                    }
+                    catch(NoSuchMethodException nsme) {
+                        nsme.printStackTrace();
+                    }
+                }
+            });
+        }
+        finally {
+            ScriptProfiler.stop(script_name, start_time);
         }
     }
 }
@@ -0,0 +1,227 @@
+package scripting;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ScriptProfiler times every script call and keeps an optional per-frame scripting budget.
+ *
+ * Each script gets a count of calls and the total and longest time spent in it, so a designer can see
+ * what a script costs per frame before it ships. With a budget set, scripts that aren't critical
+ * are deferred to a later frame once the frame's scripting time is used up, and frames that still
+ * go over are counted and summed up in the periodic report, not printed one frame at a time.
+ *
+ * @author jeremypark
+ *
+ */
+public class ScriptProfiler {
+    // nanoseconds in a millisecond, for printing
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    // timing for each script, by file name
+    private static final ConcurrentHashMap<String, ScriptStats> stats = new ConcurrentHashMap<String, ScriptStats>();
+
+    // scripting time allowed per frame in nanoseconds, 0 for no budget
+    private static volatile long budget = 0;
+
+    // print the timings every this many frames, 0 to never print
+    private static volatile int reportInterval = 0;
+
+    // scripting time spent and updates deferred this frame
+    private static long frameTime = 0;
+    private static int frameDeferred = 0;
+
+    // frames seen, and frames that went over budget
+    private static long frames = 0;
+    private static long overruns = 0;
+
+    // since the last report: frames over budget, updates deferred, and the longest frame of scripting
+    private static long recentOverruns = 0;
+    private static long recentDeferred = 0;
+    private static long recentWorst = 0;
+
+    /**
+     * Start timing a script call
+     * @return start time to hand to stop()
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Finish timing a script call
+     * @param scriptName file name of the script that ran
+     * @param startTime from start()
+     */
+    public static void stop(String scriptName, long startTime) {
+        long time = System.nanoTime() - startTime;
+
+        statsFor( scriptName ).record( time );
+
+        synchronized (ScriptProfiler.class) {
+            frameTime += time;
+        }
+    }
+
+    /**
+     * Check if a script that isn't critical should wait for a later frame
+     * @param scriptName file name of the script
+     * @return true if this frame's budget is used up, and the update was counted as deferred
+     */
+    public static synchronized boolean defer(String scriptName) {
+        if (budget <= 0 || frameTime < budget) {
+            return false;
+        }
+
+        frameDeferred++;
+        statsFor( scriptName ).defer();
+        return true;
+    }
+
+    /**
+     * Start a new frame of scripting time
+     */
+    public static synchronized void beginFrame() {
+        frameTime = 0;
+        frameDeferred = 0;
+    }
+
+    /**
+     * Finish a frame: count an overrun, and print the timings every report interval
+     */
+    public static void endFrame() {
+        long frame;
+
+        synchronized (ScriptProfiler.class) {
+            frame = ++frames;
+
+            if (budget > 0 && (frameTime > budget || frameDeferred > 0)) {
+                overruns++;
+                recentOverruns++;
+                recentDeferred += frameDeferred;
+            }
+
+            if (frameTime > recentWorst) {
+                recentWorst = frameTime;
+            }
+        }
+
+        if (reportInterval > 0 && frame % reportInterval == 0) {
+            report();
+        }
+    }
+
+    /**
+     * Print the timings of every script, and the frames over budget since the last report
+     */
+    public static synchronized void report() {
+        long frameCount = Math.max( frames, 1 );
+
+        for (Map.Entry<String, ScriptStats> entry : stats.entrySet()) {
+            ScriptStats scriptStats = entry.getValue();
+
+            System.out.println( entry.getKey() + ": " + scriptStats.getCalls() + " calls, "
+                    + millis( scriptStats.getAverage() ) + " ms avg, "
+                    + millis( scriptStats.getMax() ) + " ms max, "
+                    + millis( scriptStats.getTotal() / frameCount ) + " ms per frame, "
+                    + scriptStats.getDeferred() + " deferred" );
+        }
+
+        if (budget > 0) {
+            System.out.println( overruns + " of " + frames + " frames over the " + millis( budget ) + " ms script budget ("
+                    + recentOverruns + " since the last report, " + recentDeferred + " updates deferred, worst frame "
+                    + millis( recentWorst ) + " ms)" );
+        }
+
+        recentOverruns = 0;
+        recentDeferred = 0;
+        recentWorst = 0;
+    }
+
+    /**
+     * Set the scripting time allowed per frame
+     * @param nanos budget in nanoseconds, 0 to turn the budget off
+     */
+    public static void setBudget(long nanos) {
+        budget = nanos;
+    }
+
+    /**
+     * @return scripting time allowed per frame in nanoseconds, 0 if there is no budget
+     */
+    public static long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Print the timings every so many frames
+     * @param frames between reports, 0 to never print
+     */
+    public static void setReportInterval(int frames) {
+        reportInterval = frames;
+    }
+
+    /**
+     * Get the timing of a script, making it the first time
+     */
+    private static ScriptStats statsFor(String scriptName) {
+        ScriptStats scriptStats = stats.get( scriptName );
+
+        if (scriptStats == null) {
+            stats.putIfAbsent( scriptName, new ScriptStats() );
+            scriptStats = stats.get( scriptName );
+        }
+
+        return scriptStats;
+    }
+
+    /**
+     * Nanoseconds as milliseconds, for printing
+     */
+    private static String millis(long nanos) {
+        return String.format( "%.3f", nanos / NANOS_PER_MILLI );
+    }
+
+    /**
+     * Calls, total and longest time of one script, and how often it was deferred
+     */
+    public static class ScriptStats {
+        private long calls = 0;
+        private long total = 0;
+        private long max = 0;
+        private long deferred = 0;
+
+        synchronized void record(long time) {
+            calls++;
+            total += time;
+
+            if (time > max) {
+                max = time;
+            }
+        }
+
+        synchronized void defer() {
+            deferred++;
+        }
+
+        public synchronized long getCalls() {
+            return calls;
+        }
+
+        public synchronized long getTotal() {
+            return total;
+        }
+
+        public synchronized long getAverage() {
+            return calls == 0 ? 0 : total / calls;
+        }
+
+        public synchronized long getMax() {
+            return max;
+        }
+
+        public synchronized long getDeferred() {
+            return deferred;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package scripting;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+import events.Event;
+import events.EventHandler;
+import events.EventManager;
+import events.GameTimer;
+import events.TimerService;
+
+/**
+ * ScriptScheduler lets scripts wait for a number of frames or for an event, then carry on.
+ *
+ * The script engine has no generators, so a script "yields" by handing over the rest of its work
+ * as a function, and the scheduler calls it when the wait is over:
+ *
+ *     scheduler.waitFrames(30, function() { box.setLocation(0, 0); });
+ *     scheduler.waitEvent("DEATH", function(e) { ... });
+ *
+ * Nothing polls and no threads are made. Frame waits are TimerService timers, so they cost the same
+ * however many there are, and a script can keep the timer to cancel the wait.
+ * Frames are the event manager's timeline, so waits pause and replay with it.
+ * Event waits are handed to the EventManager, and wake up once, on the next event of that type.
+ * Resumed functions run under the ScriptGuard, so one that runs too long can stop itself with guard.check().
+ *
+ * I read this Game Programming Patterns chapter to help me make this class:
+ * http://gameprogrammingpatterns.com/update-method.html
+ *
+ * Specifically, the idea of not giving every object an update it has to check every frame.
+ *
+ * @author jeremypark
+ *
+ */
+public class ScriptScheduler implements EventHandler {
+    // the scheduler scripts get bound to, using Singleton pattern
+    private static final ScriptScheduler scheduler = new ScriptScheduler();
+
+    // functions waiting for an event, by event type
+    private final HashMap<String, ArrayList<Consumer<Event>>> eventWaiters = new HashMap<String, ArrayList<Consumer<Event>>>();
+
+    /**
+     * @return the scheduler scripts use
+     */
+    public static ScriptScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Run something after a number of frames
+     * @param frames to wait, at least 1
+     * @param resume what to run afterwards
+     * @return timer, to cancel the wait
+     */
+    public GameTimer waitFrames(long frames, final Runnable resume) {
+        return TimerService.scheduleAfter( frames, new Runnable() {
+            @Override
+            public void run() {
+                ScriptGuard.run( null, guarded( resume ) );
+            }
+        } );
+    }
+
+    /**
+     * Run something the next time an event of a type is handled
+     * @param type of event, e.g. "SPAWN"
+     * @param resume what to run, given the event
+     */
+    public synchronized void waitEvent(String type, Consumer<Event> resume) {
+        ArrayList<Consumer<Event>> waiters = eventWaiters.get( type );
+
+        if (waiters == null) {
+            waiters = new ArrayList<Consumer<Event>>();
+            eventWaiters.put( type, waiters );
+
+            // only registers once per type
+            EventManager.register( this, type );
+        }
+
+        waiters.add( resume );
+    }
+
+    /**
+     * Wake up everything waiting for this type of event
+     */
+    @Override
+    public void onEvent(final Event e) {
+        ArrayList<Consumer<Event>> waiters;
+
+        synchronized (this) {
+            waiters = eventWaiters.get( e.type );
+
+            if (waiters == null || waiters.isEmpty()) {
+                return;
+            }
+
+            // anything that waits again waits for the next event
+            eventWaiters.put( e.type, new ArrayList<Consumer<Event>>() );
+        }
+
+        for (int i = 0; i < waiters.size(); i++) {
+            final Consumer<Event> waiter = waiters.get( i );
+
+            ScriptGuard.run( null, guarded( new Runnable() {
+                @Override
+                public void run() {
+                    waiter.accept( e );
+                }
+            } ) );
+        }
+    }
+
+    /**
+     * Wrap a resumed function so an error in it only stops that function
+     */
+    private static Runnable guarded(final Runnable resume) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    resume.run();
+                }
+                catch (ScriptGuard.Overrun o) {
+                    // the guard counts it
+                    throw o;
+                }
+                catch (RuntimeException re) {
+                    re.printStackTrace();
+                }
+            }
+        };
+    }
+}
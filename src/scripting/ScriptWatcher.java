@@ -0,0 +1,168 @@
+package scripting;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ScriptWatcher recompiles script files when they are edited on disk.
+ *
+ * It runs on its own thread and waits on a WatchService for the folders that hold loaded scripts.
+ * When a watched file changes, the watcher only reads and hashes it and publishes it as the file's latest version.
+ * It never touches an engine: each ScriptCache sees the new version the next time its own thread asks
+ * for the script, and compiles it there, so an engine is still only used by one thread.
+ * The game loop never checks the disk itself.
+ *
+ * @author jeremypark
+ *
+ */
+public class ScriptWatcher implements Runnable {
+    // service that tells us about file changes
+    private final WatchService watchService;
+
+    // latest source of each edited script, by the name it is cached under
+    private final ConcurrentHashMap<String, Version> versions = new ConcurrentHashMap<String, Version>();
+
+    // full path of each watched file, to the name it is cached under
+    private final ConcurrentHashMap<Path, String> watchedScripts = new ConcurrentHashMap<Path, String>();
+
+    // folders already registered with the watch service
+    private final HashSet<Path> watchedFolders = new HashSet<Path>();
+
+    /**
+     * Make a watcher
+     */
+    public ScriptWatcher() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * Get the latest source of a script, if it has been edited since the game started
+     * @param scriptName file name the script is cached under
+     * @return latest version, or null if the file hasn't changed
+     */
+    Version getVersion(String scriptName) {
+        return versions.get( scriptName );
+    }
+
+    /**
+     * Start watching on a new daemon thread
+     */
+    public void start() {
+        Thread thread = new Thread(this, "script-watcher");
+        thread.setDaemon( true );
+        thread.start();
+    }
+
+    /**
+     * Reload a script whenever its file changes
+     * @param scriptName file name the script is cached under
+     */
+    public synchronized void watch(String scriptName) {
+        Path file = Paths.get( scriptName ).toAbsolutePath().normalize();
+
+        if (watchedScripts.putIfAbsent( file, scriptName ) != null) {
+            return;
+        }
+
+        Path folder = file.getParent();
+
+        if (watchedFolders.add( folder )) {
+            try {
+                // editors either write over the file or replace it with a new one
+                folder.register( watchService, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE );
+            }
+            catch (IOException iox) {
+                watchedFolders.remove( folder );
+                iox.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Wait for changes and publish the scripts that changed
+     */
+    @Override
+    public void run() {
+        while (true) {
+            WatchKey key;
+
+            try {
+                key = watchService.take();
+            }
+            catch (InterruptedException ie) {
+                return;
+            }
+
+            Path folder = (Path) key.watchable();
+
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    continue;
+                }
+
+                Path file = folder.resolve( (Path) event.context() ).toAbsolutePath().normalize();
+                String scriptName = watchedScripts.get( file );
+
+                // an unchanged file (e.g. a second event for one save) keeps its compiled version
+                if (scriptName != null) {
+                    publish( scriptName );
+                }
+            }
+
+            key.reset();
+        }
+    }
+
+    /**
+     * Read a changed script and make it the latest version, for the caches to compile on their own threads
+     */
+    private void publish(String scriptName) {
+        byte[] source;
+
+        try {
+            source = Files.readAllBytes( Paths.get( scriptName ) );
+        }
+        catch (IOException iox) {
+            // replaced while we looked, there will be another event
+            System.out.println( "Could not reload " + scriptName + ": " + iox.getMessage() );
+            return;
+        }
+
+        String hash = ScriptCache.hash( source );
+        Version latest = versions.get( scriptName );
+
+        // a second event for one save
+        if (latest != null && latest.hash.equals( hash )) {
+            return;
+        }
+
+        versions.put( scriptName, new Version(hash, new String(source, StandardCharsets.UTF_8)) );
+        System.out.println( "Reloaded " + scriptName );
+    }
+
+    /**
+     * The source of a script file as it was when it changed, and its hash
+     */
+    static final class Version {
+        final String hash;
+        final String source;
+
+        // if a cache has said this version doesn't compile
+        volatile boolean reported = false;
+
+        Version(String hash, String source) {
+            this.hash = hash;
+            this.source = source;
+        }
+    }
+}
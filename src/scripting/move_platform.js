@@ -1,14 +1,23 @@
-function update() {
-	upper_bound = 150;
-	lower_bound = 500;
-	
-    if (obj.y < upper_bound) {
-        moveComponent.ySpeed *= -1;
-        obj.y = upper_bound;
-    } else if (obj.y > lower_bound) {
-    	moveComponent.ySpeed *= -1;
-        obj.y = lower_bound;
-    }
+function updateAll(entities) {
+    var y = entities.y;
+    var ySpeed = entities.ySpeed;
+    var upper_bound = entities.upperBound;
+    var lower_bound = entities.lowerBound;
+
+    for (var i = 0; i < entities.count; i++) {
+        // stop if this frame's call has run too long, every so often so the loop stays in JavaScript
+        if ((i & 255) === 0) {
+            guard.check();
+        }
 
-    obj.y += moveComponent.ySpeed;
+        if (y[i] < upper_bound[i]) {
+            ySpeed[i] = ySpeed[i] * -1;
+            y[i] = upper_bound[i];
+        } else if (y[i] > lower_bound[i]) {
+            ySpeed[i] = ySpeed[i] * -1;
+            y[i] = lower_bound[i];
+        }
+
+        y[i] = y[i] + ySpeed[i];
+    }
 }
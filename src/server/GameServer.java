@@ -1,5 +1,6 @@
 package server;
 
+import java.util.HashMap;
 import java.util.Random;
 
 import abstract_components.Collidable;
@@ -22,7 +23,13 @@ import game_objects.MovingPlatform;
 import game_objects.SpawnPoint;
 import game_objects.Terrain;
 import processing.core.PApplet;
-import time.RealTimeline;
+import scripting.BehaviourRegistry;
+import scripting.ScriptEventHandler;
+import scripting.ScriptGuard;
+import scripting.ScriptManager;
+import scripting.ScriptProfiler;
+import time.FrameClock;
+import time.MonotonicTimeline;
 
 /**
  * GameServer starts up the server for client connections and will add new players to the game.
@@ -38,6 +45,23 @@ public class GameServer extends Screen {
     private final int STATIC_PLATFORM_COLOR = color(84,64,34);
     private final int MOVING_PLATFORM_COLOR = color(200,100,50);
 
+    // scripting time allowed per frame (4 ms), and how often to print script timings (about every 10 seconds)
+    private static final long SCRIPT_BUDGET = 4000000;
+    private static final int SCRIPT_REPORT_FRAMES = 300;
+
+    // longest one script call may take before it is told to stop (20 ms, under one frame),
+    // a script that goes over ScriptGuard.STRIKES times in a row is turned off
+    private static final long SCRIPT_TIMEOUT = 20000000;
+
+    // level data: which behaviour each type of game object uses
+    private static final String BEHAVIOUR_FILE = "src/scripting/behaviours.properties";
+
+    // script that puts a box back on the map when it spawns
+    private static final String SPAWN_SCRIPT = "src/scripting/spawn_handler.js";
+
+    // spawn script of each player's box, by GUID, so it can be let go of when the player leaves
+    private static HashMap<Integer, ScriptEventHandler> spawnHandlers = new HashMap<Integer, ScriptEventHandler>();
+
     /**
      * Create the PApplet
      * Start up the server to accept clients
@@ -59,17 +83,31 @@ public class GameServer extends Screen {
 
         // start a real timeline
         // the global game world is based on a conception of real time
-        // measured in milliseconds
-        timeline = new RealTimeline();
+        // measured in milliseconds, counted with the monotonic nanosecond clock
+        timeline = new MonotonicTimeline();
         timeline.setTicSize( 1 );
         timeline.start();
+        frameClock = new FrameClock(timeline);
 
         // start up the event manager's timeline
         // a tic is a frame
-        EventManager.eventTimeline.anchorTimeline(Screen.timeline);
+        EventManager.eventTimeline.anchorTimeline(Screen.frameClock);
         EventManager.eventTimeline.setTicSize( Screen.FRAME_DELTA );
         EventManager.eventTimeline.start();
 
+        // pick up edits to the scripts without restarting
+        ScriptManager.enableHotReload();
+
+        // pick a script or Java behaviour for each type of game object
+        BehaviourRegistry.load( BEHAVIOUR_FILE );
+
+        // time the scripts, and keep them to part of each frame
+        ScriptProfiler.setBudget( SCRIPT_BUDGET );
+        ScriptProfiler.setReportInterval( SCRIPT_REPORT_FRAMES );
+
+        // stop a script that runs away instead of freezing every player's game
+        ScriptGuard.setTimeout( SCRIPT_TIMEOUT );
+
         // load everything into the game world
         loadGameEnvironment();
     }
@@ -222,6 +260,7 @@ public class GameServer extends Screen {
      * Place the character on the map
      * Set its controllability for this screen
      * Add it to the list of game objects
+     * Call this on the game loop (see Screen.runOnSimulation), it takes a slot in the physics store.
      *
      * Referred to Game Programming Patterns chapter in the header of GameWorld.java.
      */
@@ -238,12 +277,38 @@ public class GameServer extends Screen {
 
         // register this game object with the event manager.
         EventManager.register( character, "COLLISION" );
-        EventManager.register( character, "SPAWN" );
         EventManager.register( character, "DEATH" );
 
+        // spawning is handled by a script, only for this box
+        ScriptEventHandler spawnHandler = new ScriptEventHandler(SPAWN_SCRIPT, "SPAWN", guid);
+        spawnHandler.bindArgument( "box", character );
+        spawnHandlers.put( guid, spawnHandler );
+
         return character;
     }
 
+    /**
+     * Take a player's box out of the game, and stop sending it events
+     * Call this on the game loop, like createUserBox.
+     * @param GUID of the box
+     */
+    public static void removeUserBox(int GUID) {
+        GameObject character = gameObjects.getByGUID( GUID );
+
+        if (character instanceof Box) {
+            EventManager.unregister( (Box) character, "COLLISION" );
+            EventManager.unregister( (Box) character, "DEATH" );
+        }
+
+        ScriptEventHandler spawnHandler = spawnHandlers.remove( GUID );
+
+        if (spawnHandler != null) {
+            spawnHandler.unregister();
+        }
+
+        gameObjects.removeByGUID( GUID );
+    }
+
 
     /**
      * Create a new game object
@@ -9,7 +9,9 @@ import java.net.Socket;
 import java.net.SocketException;
 import java.util.ArrayList;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 
 import display.Screen;
@@ -23,6 +25,7 @@ import game_objects.Box;
 import game_objects.GameObject;
 import game_objects.GameObjectList;
 import time.LocalTimeline;
+import time.MonotonicTimeline;
 
 /**
  * This class represents a server.
@@ -51,6 +54,9 @@ public class Server implements Runnable {
 
     private final static int CLIENT_TIC_SIZE = 33;
 
+    // nanoseconds in a millisecond
+    private final static long NANOS_PER_MILLI = 1000000;
+
     private Object mutex = new Object();
 
     /**
@@ -97,14 +103,17 @@ public class Server implements Runnable {
                             GameObject mover = movers.get( i );
 
                             // get its current position
-                            PositionUpdateEvent newPosition = new PositionUpdateEvent(EventManager.nextFrame(), EventManager.offset(), mover.x, mover.y, mover.getGUID());
+                            PositionUpdateEvent newPosition = new PositionUpdateEvent(EventManager.nextFrame(), EventManager.offset(), mover.getX(), mover.getY(), mover.getGUID());
 
                             // write out event to all clients
 
                             for(ObjectOutputStream dout : output_streams)
                             {
                                 try {
-                                    dout.writeObject(newPosition);
+                                    // the connection's thread answers pings on the same stream
+                                    synchronized ( dout ) {
+                                        dout.writeObject(newPosition);
+                                    }
                                 } catch (SocketException se) {
                                     //in the case where it doesn't update in time!
                                 }
@@ -116,8 +125,15 @@ public class Server implements Runnable {
                     Event event = eventQueue.take();
 
                     if (event instanceof KeyPressEvent) {
-                        KeyPressEvent update = (KeyPressEvent) event;
-                        handleKeyPress(update);
+                        final KeyPressEvent update = (KeyPressEvent) event;
+
+                        // moving a box wakes it in the physics store, so do it on the game loop between steps
+                        Screen.runOnSimulation( new Runnable() {
+                            @Override
+                            public void run() {
+                                handleKeyPress(update);
+                            }
+                        } );
                     } else if (event instanceof NewPlayerEvent) {
                         synchronized ( mutex ) {
                             // get its current position
@@ -126,23 +142,33 @@ public class Server implements Runnable {
                             // write out event to all clients
                             for(ObjectOutputStream dout : output_streams)
                             {
-                                dout.writeObject(newPlayer);
+                                synchronized ( dout ) {
+                                    dout.writeObject(newPlayer);
+                                }
                             }
                         }
                     }
                     else if (event instanceof ExitEvent) {
                         synchronized ( mutex ) {
                             // get its current position
-                            ExitEvent exit = (ExitEvent) event;
+                            final ExitEvent exit = (ExitEvent) event;
 
-                            gameObjects.removeByGUID( exit.getGUID() );
+                            // the box gives its physics slot back on the game loop, between steps
+                            Screen.runOnSimulation( new Runnable() {
+                                @Override
+                                public void run() {
+                                    GameServer.removeUserBox( exit.getGUID() );
 
-                            Screen.newGameWorld( gameObjects );
+                                    Screen.newGameWorld( gameObjects );
+                                }
+                            } );
 
                             // write out event to all clients
                             for(ObjectOutputStream dout : output_streams)
                             {
-                                dout.writeObject(exit);
+                                synchronized ( dout ) {
+                                    dout.writeObject(exit);
+                                }
                             }
                         }
                     }
@@ -159,7 +185,7 @@ public class Server implements Runnable {
     }
 
     /**
-     * Private helper method to handle key presses
+     * Private helper method to handle key presses, on the game loop
      * @param update
      */
     private void handleKeyPress (KeyPressEvent update) {
@@ -189,8 +215,16 @@ public class Server implements Runnable {
                 // Wait for a client connection.
                 clientSocket = serverSocket.accept();
 
-                // Add the character to the game
-                Box newCharacter = GameServer.createUserBox();
+                // Add the character to the game, on the game loop so the physics store only changes between steps
+                FutureTask<Box> join = new FutureTask<Box>(new Callable<Box>() {
+                    @Override
+                    public Box call() {
+                        return GameServer.createUserBox();
+                    }
+                });
+
+                Screen.runOnSimulation( join );
+                Box newCharacter = join.get();
 
                 // Add the character to the list of movers.
                 movers.add( newCharacter );
@@ -208,7 +242,7 @@ public class Server implements Runnable {
                 GameObjectList currentWorld = GameServer.getGameObjects();
 
                 // get GUID of box the user controls
-                int GUID = GameServer.getCurrentGUID();
+                int GUID = newCharacter.getGUID();
 
                 // create a local timeline and send it to the client
                 LocalTimeline localTimeline = new LocalTimeline();
@@ -240,6 +274,18 @@ public class Server implements Runnable {
         }
     }
 
+    /**
+     * Server clock for clock sync: time on the game timeline, in nanoseconds
+     * @return server time
+     */
+    public static long serverNanos() {
+        if (Screen.timeline instanceof MonotonicTimeline) {
+            return ((MonotonicTimeline) Screen.timeline).getElapsedNanos();
+        }
+
+        return Screen.timeline.getTime() * Screen.timeline.getTicSize() * NANOS_PER_MILLI;
+    }
+
     // Remove that socket's streams
     public static void remove(Socket s) throws IOException {
         for (int i = 0; i < sockets.size(); i++) {
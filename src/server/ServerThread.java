@@ -11,6 +11,8 @@ import events.Event;
 import events.EventManager;
 import events.ExitEvent;
 import events.KeyPressEvent;
+import events.PingEvent;
+import events.PongEvent;
 
 /**
  * ServerThread handles client reads and writes
@@ -46,6 +48,18 @@ public class ServerThread extends Thread {
         this.GUID = GUID;
     }
 
+    /**
+     * Send a client the server's time for clock sync
+     * @param ping from the client
+     */
+    private void answerPing(PingEvent ping) throws IOException {
+        long receiveTime = Server.serverNanos();
+
+        synchronized ( output ) {
+            output.writeObject( new PongEvent(ping.getClientSendTime(), receiveTime, Server.serverNanos()) );
+        }
+    }
+
     /**
      * Thread's run method, accept I/O from client
      */
@@ -55,10 +69,15 @@ public class ServerThread extends Thread {
             while (true) {
                 // READ AN UPDATE FROM THE CLIENT
                 try {
-                    Event update = (KeyPressEvent) input.readObject();
+                    Event update = (Event) input.readObject();
 
-                    // put that event on the event queue
-                    eventQueue.put(update);
+                    if (update instanceof PingEvent) {
+                        // answer clock sync pings right away, the time in between is measured too
+                        answerPing( (PingEvent) update );
+                    } else {
+                        // put that event on the event queue
+                        eventQueue.put( (KeyPressEvent) update );
+                    }
                 }
                 catch (SocketException e) {
                     // sometimes it messes up?
@@ -0,0 +1,74 @@
+package test;
+
+import abstract_components.Movable;
+import concrete_components.DrawComponent;
+import concrete_components.MoveComponent;
+import concrete_components.SizeComponent;
+import game_objects.GameObject;
+import game_objects.Platform;
+import scripting.Behaviour;
+import scripting.MovePlatformBehaviour;
+import scripting.ScriptBatch;
+import scripting.ScriptBehaviour;
+import scripting.ScriptManager;
+
+/**
+ * This class compares the moving platform script with the same behaviour written in Java.
+ *
+ * Both run over the same number of platforms through a ScriptBatch, the way the game runs them,
+ * and the average time per frame is printed for each.
+ *
+ * I do not wish for this class to be graded; it's merely for testing purposes.
+ *
+ * @author jeremypark
+ *
+ */
+public class BehaviourBenchmark {
+    // platforms in each batch
+    private static final int PLATFORMS = 1000;
+
+    // frames to warm up the JIT, then frames to time
+    private static final int WARMUP_FRAMES = 2000;
+    private static final int TIMED_FRAMES = 10000;
+
+    public static void main(String[] args) {
+        if (ScriptManager.getEngine() == null) {
+            System.out.println( "No JavaScript engine on this JVM, skipping move_platform.js" );
+        } else {
+            time( "move_platform.js", new ScriptBehaviour("src/scripting/move_platform.js") );
+        }
+
+        time( "MovePlatformBehaviour", new MovePlatformBehaviour() );
+    }
+
+    /**
+     * Run a behaviour over a batch of platforms and print how long a frame takes
+     * @param name to print
+     * @param behaviour to time
+     */
+    private static void time(String name, Behaviour behaviour) {
+        ScriptBatch batch = new ScriptBatch(behaviour);
+        Movable platformMove = new MoveComponent(0, 3);
+
+        for (int i = 0; i < PLATFORMS; i++) {
+            GameObject platform = new Platform(i, new SizeComponent(150, 25), new DrawComponent(0));
+            platform.setY( 150 + i % 350 );
+            batch.add( platform, platformMove, 150, 500 );
+        }
+
+        for (int frame = 0; frame < WARMUP_FRAMES; frame++) {
+            batch.updateAll();
+        }
+
+        long startTime = System.nanoTime();
+
+        for (int frame = 0; frame < TIMED_FRAMES; frame++) {
+            batch.updateAll();
+        }
+
+        long perFrame = (System.nanoTime() - startTime) / TIMED_FRAMES;
+
+        System.out.println( name + ": " + PLATFORMS + " platforms, " + perFrame + " ns per frame, "
+                + (perFrame / PLATFORMS) + " ns per platform" );
+    }
+}
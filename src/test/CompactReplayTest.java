@@ -0,0 +1,215 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import events.PositionUpdateEvent;
+import replay.CompactReplayReader;
+import replay.CompactReplayWriter;
+
+/**
+ * This class tests the compact replay format: that it reads back what was written,
+ * that seeking lands on the same state as reading from the start, and that a broken file fails.
+ *
+ * I do not wish for this class to be graded; it's merely for testing purposes.
+ *
+ * @author jeremypark
+ *
+ */
+class CompactReplayTest {
+    private static final int[] GUIDS = { 11, 12, 13, 20 };
+
+    // small, so the replay has many blocks
+    private static final long KEYFRAME_INTERVAL = 50;
+
+    private static final int TICKS = 2000;
+
+    @Test
+    void roundTripCompressed () throws IOException {
+        roundTrip( true );
+    }
+
+    @Test
+    void roundTripUncompressed () throws IOException {
+        roundTrip( false );
+    }
+
+    @Test
+    void seekMatchesReadingFromTheStart () throws IOException {
+        List<int[]> updates = makeUpdates();
+        File file = write( updates, true );
+        CompactReplayReader reader = new CompactReplayReader(file);
+
+        try {
+            for (long target = 0; target <= TICKS; target += 37) {
+                // brute force: every update before the tick, last one wins
+                HashMap<Integer, int[]> expected = new HashMap<Integer, int[]>();
+                int firstAfter = -1;
+
+                for (int i = 0; i < updates.size(); i++) {
+                    int[] update = updates.get( i );
+
+                    if (update[0] < target) {
+                        expected.put( update[1], update );
+                    } else if (firstAfter < 0) {
+                        firstAfter = i;
+                    }
+                }
+
+                List<PositionUpdateEvent> state = reader.seek( target );
+                assertEquals( expected.size(), state.size(), "objects known at tick " + target );
+
+                for (PositionUpdateEvent position : state) {
+                    int[] update = expected.get( position.getGUID() );
+                    assertEquals( target, position.getTimeStamp() );
+                    assertEquals( update[2], position.getX(), "x of " + position.getGUID() + " at tick " + target );
+                    assertEquals( update[3], position.getY(), "y of " + position.getGUID() + " at tick " + target );
+                }
+
+                // and reading goes on from the tick
+                PositionUpdateEvent next = reader.next();
+
+                if (firstAfter < 0) {
+                    assertNull( next );
+                } else {
+                    assertUpdate( updates.get( firstAfter ), next );
+                }
+            }
+        }
+        finally {
+            reader.close();
+            file.delete();
+        }
+    }
+
+    @Test
+    void truncatedBlockFails () throws IOException {
+        File file = write( makeUpdates(), true );
+
+        // say the first block is stored in half the bytes it is, so its deflate stream ends early
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        long storedLength = 16 + 4L * GUIDS.length + 4;
+
+        raf.seek( storedLength );
+        int stored = raf.readInt();
+        raf.seek( storedLength );
+        raf.writeInt( stored / 2 );
+        raf.close();
+
+        final CompactReplayReader reader = new CompactReplayReader(file);
+
+        try {
+            assertThrows( IOException.class, new Executable() {
+                @Override
+                public void execute () throws IOException {
+                    while (reader.next() != null) {
+                    }
+                }
+            } );
+        }
+        finally {
+            reader.close();
+            file.delete();
+        }
+    }
+
+    /**
+     * Write a replay and read every update back in order
+     */
+    private void roundTrip (boolean compressed) throws IOException {
+        List<int[]> updates = makeUpdates();
+        File file = write( updates, compressed );
+        CompactReplayReader reader = new CompactReplayReader(file);
+
+        try {
+            for (int[] update : updates) {
+                assertUpdate( update, reader.next() );
+            }
+
+            assertNull( reader.next() );
+        }
+        finally {
+            reader.close();
+            file.delete();
+        }
+    }
+
+    /**
+     * Some ticks of a few boxes moving around, with ticks that have no updates in between
+     * @return tick, GUID, x and y of every update
+     */
+    private List<int[]> makeUpdates () {
+        Random random = new Random(481);
+        ArrayList<int[]> updates = new ArrayList<int[]>();
+        int[] x = new int[GUIDS.length];
+        int[] y = new int[GUIDS.length];
+
+        for (int tick = 0; tick < TICKS; tick++) {
+            if (tick % 7 == 3) {
+                continue;
+            }
+
+            for (int i = 0; i < GUIDS.length; i++) {
+                if (random.nextInt( 3 ) == 0) {
+                    continue;
+                }
+
+                // mostly small moves, sometimes a jump across the screen
+                if (random.nextInt( 50 ) == 0) {
+                    x[i] = random.nextInt( 800 );
+                    y[i] = random.nextInt( 800 );
+                } else {
+                    x[i] += random.nextInt( 11 ) - 5;
+                    y[i] += random.nextInt( 11 ) - 5;
+                }
+
+                updates.add( new int[] { tick, GUIDS[i], x[i], y[i] } );
+            }
+        }
+
+        return updates;
+    }
+
+    /**
+     * Write updates to a new compact replay
+     */
+    private File write (List<int[]> updates, boolean compressed) throws IOException {
+        File file = File.createTempFile( "compact-replay-test", ".rpz" );
+        file.deleteOnExit();
+
+        CompactReplayWriter writer = new CompactReplayWriter(file, GUIDS, compressed, KEYFRAME_INTERVAL);
+
+        try {
+            for (int[] update : updates) {
+                writer.write( update[0], update[1], update[2], update[3] );
+            }
+        }
+        finally {
+            writer.close();
+        }
+
+        return file;
+    }
+
+    /**
+     * Check a position update read back is the one written
+     */
+    private void assertUpdate (int[] expected, PositionUpdateEvent actual) {
+        assertEquals( expected[0], actual.getTimeStamp(), "tick" );
+        assertEquals( expected[1], actual.getGUID(), "GUID" );
+        assertEquals( expected[2], actual.getX(), "x" );
+        assertEquals( expected[3], actual.getY(), "y" );
+    }
+}
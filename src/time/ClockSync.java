@@ -0,0 +1,92 @@
+package time;
+
+/**
+ * ClockSync estimates the round trip time to the server and the offset between the server's clock and ours.
+ *
+ * Every ping/pong gives four timestamps: we send (t0), the server receives (t1), the server answers (t2),
+ * we receive (t3). Like NTP:
+ *
+ *     round trip = (t3 - t0) - (t2 - t1)
+ *     offset     = ((t1 - t0) + (t2 - t3)) / 2
+ *
+ * The round trip time is smoothed like TCP does (an average and a mean deviation, each moving 1/8 or 1/4
+ * of the way to every new sample). The offset is smoothed the same way, but samples whose round trip
+ * was much slower than usual are skipped, since a ping that sat in a queue says little about the clocks.
+ *
+ * I read RFC 6298 (TCP retransmission timer) to help me make this class:
+ * https://tools.ietf.org/html/rfc6298
+ *
+ * @author jeremypark
+ *
+ */
+public class ClockSync {
+    // how far the averages move toward each sample
+    private static final double RTT_GAIN = 1.0 / 8;
+    private static final double DEVIATION_GAIN = 1.0 / 4;
+    private static final double OFFSET_GAIN = 1.0 / 8;
+
+    // samples slower than the average by this many deviations don't move the offset
+    private static final double OUTLIER_DEVIATIONS = 4;
+
+    // all in nanoseconds
+    private double roundTripTime = -1;
+    private double deviation = 0;
+    private double offset = 0;
+
+    // number of samples so far
+    private int samples = 0;
+
+    /**
+     * Add one ping/pong
+     * @param clientSendTime our clock when the ping was sent
+     * @param serverReceiveTime server clock when the ping came in
+     * @param serverSendTime server clock when the pong went out
+     * @param clientReceiveTime our clock when the pong came in
+     */
+    public synchronized void addSample(long clientSendTime, long serverReceiveTime, long serverSendTime, long clientReceiveTime) {
+        long rttSample = Math.max( 0, (clientReceiveTime - clientSendTime) - (serverSendTime - serverReceiveTime) );
+        double offsetSample = ((serverReceiveTime - clientSendTime) + (serverSendTime - clientReceiveTime)) / 2.0;
+
+        samples++;
+
+        // first sample: take it as it is
+        if (roundTripTime < 0) {
+            roundTripTime = rttSample;
+            deviation = rttSample / 2.0;
+            offset = offsetSample;
+            return;
+        }
+
+        boolean outlier = rttSample > roundTripTime + OUTLIER_DEVIATIONS * deviation;
+
+        deviation += DEVIATION_GAIN * (Math.abs( rttSample - roundTripTime ) - deviation);
+        roundTripTime += RTT_GAIN * (rttSample - roundTripTime);
+
+        if (!outlier) {
+            offset += OFFSET_GAIN * (offsetSample - offset);
+        }
+    }
+
+    /**
+     * @return server clock minus our clock, in nanoseconds
+     */
+    public synchronized long getOffset() {
+        return Math.round( offset );
+    }
+
+    /**
+     * Turn a time on our clock into the server's clock
+     * @param localTime our clock, in nanoseconds
+     * @return server clock, in nanoseconds
+     */
+    public long toServerTime(long localTime) {
+        return localTime + getOffset();
+    }
+
+    /**
+     * @return number of ping/pongs so far
+     */
+    public synchronized int getSamples() {
+        return samples;
+    }
+}
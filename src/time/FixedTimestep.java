@@ -0,0 +1,121 @@
+package time;
+
+/**
+ * FixedTimestep turns the time that passed on a timeline into a whole number of simulation steps.
+ *
+ * Leftover time is kept in an accumulator for the next frame, so the simulation runs at the same
+ * speed no matter how often the screen draws. If a frame runs very long, only a limited number of
+ * steps are run and the rest of the backlog is dropped, so one slow frame can't snowball.
+ *
+ * The fraction of a step left in the accumulator is the interpolation alpha,
+ * used to draw objects between their last two simulated positions.
+ *
+ * Inspired by: https://gafferongames.com/post/fix_your_timestep/
+ * And the Game Loop chapter of Game Programming Patterns: http://gameprogrammingpatterns.com/game-loop.html
+ *
+ * @author jeremypark
+ *
+ */
+public class FixedTimestep {
+    // length of one simulation step, in tics of the timeline that is fed in
+    private final long stepSize;
+
+    // most steps to run for a single frame
+    private final int maxSteps;
+
+    // time that has passed but hasn't been simulated yet
+    private long accumulator = 0;
+
+    // timeline time of the last frame
+    private long lastTime = 0;
+
+    // whether lastTime has been set
+    private boolean started = false;
+
+    /**
+     * Make a stepper
+     * @param stepSize length of one step, in tics
+     * @param maxSteps most steps to run for a single frame
+     */
+    public FixedTimestep(long stepSize, int maxSteps) {
+        if (stepSize <= 0 || maxSteps <= 0) {
+            throw new IllegalArgumentException( "Step size and max steps must be positive." );
+        }
+
+        this.stepSize = stepSize;
+        this.maxSteps = maxSteps;
+    }
+
+    /**
+     * Add the time since the last frame and find out how many steps to run
+     * @param now current time of the timeline
+     * @return number of steps to simulate this frame
+     */
+    public int advance(long now) {
+        // the first frame only sets the starting point
+        if (!started) {
+            lastTime = now;
+            started = true;
+            return 0;
+        }
+
+        // a timeline can jump backwards (e.g. a new tic size); don't simulate negative time
+        if (now > lastTime) {
+            accumulator += now - lastTime;
+        }
+
+        lastTime = now;
+
+        long steps = accumulator / stepSize;
+
+        // too far behind: run the max, throw away the whole steps that are left
+        if (steps > maxSteps) {
+            steps = maxSteps;
+            accumulator %= stepSize;
+        } else {
+            accumulator -= steps * stepSize;
+        }
+
+        return (int) steps;
+    }
+
+    /**
+     * Time on the timeline that a step of this frame simulates up to
+     * @param step which step of this frame, from 0
+     * @param steps number of steps advance gave for this frame
+     * @return end of the step
+     */
+    public long getStepTime(int step, int steps) {
+        return lastTime - accumulator - (steps - 1 - step) * stepSize;
+    }
+
+    /**
+     * How far we are into the next step
+     * @return a value from 0 (just stepped) up to 1 (about to step)
+     */
+    public float getAlpha() {
+        return (float) accumulator / stepSize;
+    }
+
+    /**
+     * @return length of one step, in tics
+     */
+    public long getStepSize() {
+        return stepSize;
+    }
+
+    /**
+     * @return most steps run for one frame
+     */
+    public int getMaxSteps() {
+        return maxSteps;
+    }
+
+    /**
+     * Forget any time that has built up, e.g. after the timeline was swapped
+     */
+    public void reset() {
+        accumulator = 0;
+        started = false;
+    }
+}
@@ -0,0 +1,131 @@
+package time;
+
+/**
+ * FrameClock reads a timeline once per frame and answers with that reading until the next frame.
+ *
+ * Timelines anchored on a FrameClock (like the event manager's) don't go down to the system clock
+ * every time they are asked for the time, they just do arithmetic on the frame's reading.
+ * Every event made during one frame gets stamped with the same time, too.
+ *
+ * A game loop that runs fixed simulation steps can instead sample the timeline once and move the clock
+ * to the time of each step with stepTo, so timelines anchored here advance once per step, not once per draw.
+ *
+ * Changes (pausing, tic size, speed) go straight to the timeline underneath, and show up
+ * at the next tick. A FrameClock is never sent to a client: it only moves when its own game loop ticks it.
+ *
+ * @author jeremypark
+ *
+ */
+public class FrameClock implements Timeline {
+    // timeline that is read once per frame
+    private final Timeline root;
+
+    // its time at the start of this frame
+    private volatile long frameTime = 0;
+
+    // if it has been read yet
+    private volatile boolean sampled = false;
+
+    /**
+     * Make a clock for a timeline
+     * @param root timeline to read once per frame
+     */
+    public FrameClock(Timeline root) {
+        this.root = root;
+    }
+
+    /**
+     * Read the timeline for a new frame. Call this once at the start of every frame.
+     * @return time of this frame
+     */
+    public long tick() {
+        frameTime = root.getTime();
+        sampled = true;
+        return frameTime;
+    }
+
+    /**
+     * Read the timeline for a new frame without moving this clock; stepTo moves it step by step
+     * @return time of the timeline now
+     */
+    public long sample() {
+        return root.getTime();
+    }
+
+    /**
+     * Move this clock to the time of a simulation step. It never goes back.
+     * @param time of the step, on the timeline underneath
+     */
+    public void stepTo(long time) {
+        if (!sampled || time > frameTime) {
+            frameTime = time;
+        }
+
+        sampled = true;
+    }
+
+    /**
+     * Get the time of this frame, without reading the timeline again
+     */
+    @Override
+    public long getTime() {
+        if (!sampled) {
+            return tick();
+        }
+
+        return frameTime;
+    }
+
+    /**
+     * @return timeline that is read once per frame
+     */
+    public Timeline getRoot() {
+        return root;
+    }
+
+    @Override
+    public void start() {
+        root.start();
+        tick();
+    }
+
+    @Override
+    public void pause() {
+        root.pause();
+    }
+
+    @Override
+    public void play() {
+        root.play();
+    }
+
+    @Override
+    public void setTicSize( int ticSize ) {
+        root.setTicSize( ticSize );
+    }
+
+    @Override
+    public void changeTicSize(double multiplier) {
+        root.changeTicSize( multiplier );
+    }
+
+    @Override
+    public int getTicSize() {
+        return root.getTicSize();
+    }
+
+    @Override
+    public boolean isPaused() {
+        return root.isPaused();
+    }
+
+    @Override
+    public void setTimeScale(double timeScale) {
+        root.setTimeScale( timeScale );
+    }
+
+    @Override
+    public double getTimeScale() {
+        return root.getTimeScale();
+    }
+}
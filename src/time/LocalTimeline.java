@@ -1,12 +1,22 @@
 package time;
 
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * LocalTimeline represents a local timeline.
  *
  * You can anchor a local timeline in any other timeline.
  *
+ * The game loop pauses and speeds the timeline up while network threads read it, so all of its
+ * state lives in one immutable State. Reading the time reads that State once; changing it builds
+ * a new State and swaps it in with compare-and-set, trying again if another thread got there first.
+ * Readers never take a lock and never see half of a change.
+ *
+ * The time scale sets how fast the timeline runs compared to its anchor (0.5 for half speed, 64 to
+ * fast forward a replay). Changing it keeps counting from the current time instead of jumping:
+ * the time when it changed is saved, and from there the time moves at the new rate.
+ *
  * @author jeremypark
  *
  */
@@ -15,28 +25,13 @@ public class LocalTimeline implements Timeline, Serializable {
      *
      */
     private static final long serialVersionUID = 1L;
-    private long startTime;
-    private long pausePoint = 0;
-    private long totalPauseTime = 0;
-    private int ticSize;
-    private boolean paused = false;
-    private Timeline anchor = null;
-    private long currentTime = 0;
-
-    private boolean recording = false;
-
-    private boolean stopped = false;
 
-    private long speed;
+    // everything that changes, swapped as a whole
+    private final AtomicReference<State> state = new AtomicReference<State>(new State(0, 0, 0, 1, 1, 0, 0, false, false, 0));
 
-    // how do i set this?
-    private int offset;
+    private volatile Timeline anchor = null;
 
-    private boolean normalSpeed = true;
-    private boolean doubleSpeed = false;
-    private boolean halfSpeed = false;
-
-    private long originalStartTime;
+    private volatile boolean recording = false;
 
     /**
      * Anchor the local timeline in another timeline
@@ -46,6 +41,13 @@ public class LocalTimeline implements Timeline, Serializable {
         anchor = timeline;
     }
 
+    /**
+     * @return timeline this one is anchored in
+     */
+    public Timeline getAnchor () {
+        return anchor;
+    }
+
     /**
      * Start the timeline
      * Get the current anchor's time
@@ -53,11 +55,19 @@ public class LocalTimeline implements Timeline, Serializable {
     @Override
     public void start () {
         if (anchor != null) {
-            startTime = anchor.getTime();
-            originalStartTime = startTime;
+            long now = anchor.getTime();
+            State current;
+            State started;
+
+            do {
+                current = state.get();
+                started = new State(now, current.pausePoint, current.totalPauseTime, current.ticSize,
+                        current.timeScale, 0, 0, current.paused, current.stopped, current.stoppedTime);
+
+                // count from zero at the current time scale
+                started = started.withScaleBase( 0, started.getRawTicks( now ) );
+            } while (!state.compareAndSet( current, started ));
         }
-
-        normalSpeed = true;
     }
 
     /**
@@ -65,7 +75,11 @@ public class LocalTimeline implements Timeline, Serializable {
      */
     @Override
     public void setTicSize ( int ticSize ) {
-        this.ticSize = ticSize;
+        State current;
+
+        do {
+            current = state.get();
+        } while (!state.compareAndSet( current, current.withTicSize( ticSize ) ));
     }
 
     /**
@@ -73,99 +87,89 @@ public class LocalTimeline implements Timeline, Serializable {
      */
     @Override
     public int getTicSize () {
-        return ticSize;
+        return state.get().ticSize;
     }
 
     @Override
     public void pause () {
-        // if it is not already paused
-        if (!paused) {
-            pausePoint = anchor.getTime();  // get the current time
-            paused = true;
-        }
+        long now = anchor.getTime();  // get the current time
+        State current;
+
+        do {
+            current = state.get();
+
+            // if it is already paused
+            if (current.paused) {
+                return;
+            }
+        } while (!state.compareAndSet( current, new State(current.startTime, now, current.totalPauseTime, current.ticSize,
+                current.timeScale, current.scaledBase, current.rawBase, true, current.stopped, current.stoppedTime) ));
     }
 
     @Override
     public void play () {
-        // if you are paused
-        if (paused) {
-            totalPauseTime += getPauseInterval();
-            paused = false;
-        }
+        long now = anchor.getTime();
+        State current;
+
+        do {
+            current = state.get();
+
+            // if you are not paused
+            if (!current.paused) {
+                return;
+            }
+        } while (!state.compareAndSet( current, new State(current.startTime, current.pausePoint,
+                current.totalPauseTime + current.getPauseInterval( now ), current.ticSize,
+                current.timeScale, current.scaledBase, current.rawBase, false, current.stopped, current.stoppedTime) ));
     }
 
     @Override
     public long getTime () {
-        if (!stopped) {
-            currentTime = getLocalTime() - getTotalPauseTime();
-        }
+        State current = state.get();
 
-        return currentTime;
-    }
-
-    private long getLocalTime() {
-        return (anchor.getTime() - startTime) / ticSize;
-    }
-
-    // set half time
-    public void halfSpeed() {
-        // double the elapsed time
-        startTime = startTime - ((anchor.getTime() - startTime));
-    }
-
-    // set normal time
-    public void normalSpeed() {
-        startTime = originalStartTime;
-    }
+        if (current.stopped) {
+            return current.stoppedTime;
+        }
 
-    // set double time
-    public void doubleSpeed() {
-        // half the elapsed time
-        startTime = ((anchor.getTime() - startTime) / 2) + startTime;
+        return current.getTime( anchor.getTime() );
     }
 
-    // compute tics elapsed
-
     /**
-     * Get total pause time
-     * @return total pause time
+     * Set how fast the timeline runs, without jumping
+     * @param timeScale 1 for normal speed, 0.5 for half, 2 for double, and so on
      */
-    private long getTotalPauseTime() {
-        if (paused) {
-            return (totalPauseTime + getPauseInterval());
-        }
-        else {
-            return (totalPauseTime);
+    @Override
+    public void setTimeScale(double timeScale) {
+        if (!(timeScale > 0) || Double.isInfinite( timeScale )) {
+            throw new IllegalArgumentException( "Time scale has to be positive" );
         }
+
+        long now = anchor.getTime();
+        State current;
+
+        do {
+            current = state.get();
+        } while (!state.compareAndSet( current, current.withTimeScale( timeScale, now ) ));
     }
 
     /**
-     * Get the pause interval
-     * @return pause interval
+     * @return how fast the timeline runs
      */
-    private long getPauseInterval () {
-        if (!paused) {
-            return 0;
-        }
-
-        long currentTime = anchor.getTime();
-        return (currentTime - pausePoint) / ticSize;
+    @Override
+    public double getTimeScale() {
+        return state.get().timeScale;
     }
 
     public boolean isPaused() {
-        return paused;
+        return state.get().paused;
     }
 
     public void record() {
-        if (!recording) {
-            recording = true;
-        }
+        recording = true;
     }
 
     public void replay() {
-        if (recording) {
-            recording = false;
-        }
+        recording = false;
     }
 
     public boolean isRecording() {
@@ -173,7 +177,7 @@ public class LocalTimeline implements Timeline, Serializable {
     }
 
     public boolean isStopped() {
-        return stopped;
+        return state.get().stopped;
     }
 
     /**
@@ -181,14 +185,131 @@ public class LocalTimeline implements Timeline, Serializable {
      * @param multiplier
      */
     public void changeTicSize(double multiplier) {
-        ticSize *= multiplier;
+        State current;
+
+        do {
+            current = state.get();
+        } while (!state.compareAndSet( current, current.withTicSize( (int) (current.ticSize * multiplier) ) ));
     }
 
     public void stop() {
         System.out.println( "**********STOP***********" );
 
-        if (!stopped) {
-            stopped = true;
+        long now = anchor.getTime();
+        State current;
+
+        do {
+            current = state.get();
+
+            if (current.stopped) {
+                return;
+            }
+        } while (!state.compareAndSet( current, new State(current.startTime, current.pausePoint, current.totalPauseTime,
+                current.ticSize, current.timeScale, current.scaledBase, current.rawBase, current.paused, true, current.getTime( now )) ));
+    }
+
+    /**
+     * Everything about the timeline that can change, never changed in place
+     */
+    private static final class State implements Serializable {
+        /**
+         *
+         */
+        private static final long serialVersionUID = 1L;
+
+        // anchor times
+        final long startTime;
+        final long pausePoint;
+        final long totalPauseTime;
+
+        // tics
+        final int ticSize;
+
+        // speed, and the scaled and unscaled time when it last changed
+        final double timeScale;
+        final double scaledBase;
+        final double rawBase;
+
+        final boolean paused;
+
+        // a stopped timeline stays at stoppedTime
+        final boolean stopped;
+        final long stoppedTime;
+
+        State(long startTime, long pausePoint, long totalPauseTime, int ticSize, double timeScale,
+                double scaledBase, double rawBase, boolean paused, boolean stopped, long stoppedTime) {
+            this.startTime = startTime;
+            this.pausePoint = pausePoint;
+            this.totalPauseTime = totalPauseTime;
+            this.ticSize = ticSize;
+            this.timeScale = timeScale;
+            this.scaledBase = scaledBase;
+            this.rawBase = rawBase;
+            this.paused = paused;
+            this.stopped = stopped;
+            this.stoppedTime = stoppedTime;
+        }
+
+        State withTicSize(int newTicSize) {
+            return new State(startTime, pausePoint, totalPauseTime, newTicSize, timeScale, scaledBase, rawBase, paused, stopped, stoppedTime);
+        }
+
+        State withScaleBase(double newScaledBase, double newRawBase) {
+            return new State(startTime, pausePoint, totalPauseTime, ticSize, timeScale, newScaledBase, newRawBase, paused, stopped, stoppedTime);
+        }
+
+        /**
+         * Change speed, carrying on from where the timeline is now
+         */
+        State withTimeScale(double newTimeScale, long anchorTime) {
+            return new State(startTime, pausePoint, totalPauseTime, ticSize, newTimeScale,
+                    getScaledTicks( anchorTime ), getRawTicks( anchorTime ), paused, stopped, stoppedTime);
+        }
+
+        /**
+         * Time in tics, given the anchor's time
+         */
+        long getTime(long anchorTime) {
+            return (long) Math.floor( getScaledTicks( anchorTime ) );
+        }
+
+        /**
+         * Time in tics at the time scale, including the part of a tic that has passed
+         */
+        double getScaledTicks(long anchorTime) {
+            return scaledBase + (getRawTicks( anchorTime ) - rawBase) * timeScale;
+        }
+
+        /**
+         * Time in tics as if the time scale was 1
+         */
+        double getRawTicks(long anchorTime) {
+            return (double) (anchorTime - startTime - getTotalPauseTime( anchorTime )) / ticSize;
+        }
+
+        /**
+         * Get total pause time
+         * @return total pause time, in anchor time
+         */
+        long getTotalPauseTime(long anchorTime) {
+            if (paused) {
+                return (totalPauseTime + getPauseInterval( anchorTime ));
+            }
+            else {
+                return (totalPauseTime);
+            }
+        }
+
+        /**
+         * Get the pause interval
+         * @return pause interval, in anchor time
+         */
+        long getPauseInterval(long anchorTime) {
+            if (!paused) {
+                return 0;
+            }
+
+            return anchorTime - pausePoint;
         }
     }
 }
@@ -0,0 +1,382 @@
+package time;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * MonotonicTimeline represents a Timeline anchored in real time, like RealTimeline,
+ * but measured with System.nanoTime() instead of System.currentTimeMillis().
+ *
+ * The wall clock can jump when the system time is corrected, and on some systems only moves
+ * every few milliseconds; nanoTime only ever counts forward, in small steps. That keeps a fixed
+ * rate tick from stalling or bursting. Tics can be smaller than a millisecond, and getTicks()
+ * gives the part of a tic that has passed as well.
+ *
+ * setTicSize() is in milliseconds so it can stand in for a RealTimeline; setTicSizeNanos() goes finer.
+ *
+ * nanoTime only means something inside one JVM, so when this timeline is sent to another program
+ * it sends how much time has passed, and starts counting from there on the other side.
+ *
+ * Like LocalTimeline, its state is one immutable State swapped with compare-and-set, so the threads
+ * reading it never lock and never see half of a pause or tic size change.
+ * The time scale works the same way as LocalTimeline's.
+ *
+ * synchronize() never moves the time backwards, since timers, replays and the event timeline all count on it
+ * only going forward. Like NTP, a small error is slewed: the timeline runs a little slower or faster
+ * (SLEW_RATE) until the error is worked off. Only a large error ahead of us is stepped over at once.
+ *
+ * I read this about how NTP slews and steps the clock to help me with synchronize():
+ * https://www.eecis.udel.edu/~mills/ntp/html/clock.html
+ *
+ * @author jeremypark
+ *
+ */
+public class MonotonicTimeline implements Timeline, Serializable {
+    /**
+     *
+     */
+    private static final long serialVersionUID = 1L;
+
+    // nanoseconds in a millisecond
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    // how much faster or slower the timeline runs while it works off a sync error (5%, 50 ms per second)
+    private static final double SLEW_RATE = 0.05;
+
+    // errors ahead of us bigger than this are stepped over instead of slewed (128 ms, like NTP)
+    private static final long STEP_THRESHOLD = 128 * NANOS_PER_MILLI;
+
+    // everything that changes, swapped as a whole
+    private transient AtomicReference<State> state = new AtomicReference<State>(new State(System.nanoTime(), 0, 0, NANOS_PER_MILLI, false, 1, 0, 0, 0, 0));
+
+    private volatile boolean recording = false;
+
+    /**
+     * Start the timeline, anchored by real time
+     */
+    @Override
+    public void start () {
+        long now = System.nanoTime();
+        State current;
+
+        do {
+            current = state.get();
+        } while (!state.compareAndSet( current, new State(now, 0, 0, current.ticSize, false, current.timeScale, 0, 0, 0, 0) ));
+    }
+
+    /**
+     * Set the tic size
+     * @param ticSize in milliseconds
+     */
+    @Override
+    public void setTicSize ( int ticSize ) {
+        setTicSizeNanos( ticSize * NANOS_PER_MILLI );
+    }
+
+    /**
+     * Set the tic size, finer than a millisecond
+     * @param ticSize in nanoseconds
+     */
+    public void setTicSizeNanos ( long ticSize ) {
+        if (ticSize <= 0) {
+            throw new IllegalArgumentException( "Tic size has to be positive" );
+        }
+
+        State current;
+
+        do {
+            current = state.get();
+        } while (!state.compareAndSet( current, current.withTicSize( ticSize ) ));
+    }
+
+    /**
+     * Adjust the tic size
+     * @param multiplier
+     */
+    public void changeTicSize(double multiplier) {
+        State current;
+
+        do {
+            current = state.get();
+        } while (!state.compareAndSet( current, current.withTicSize( Math.max( 1, Math.round( current.ticSize * multiplier ) ) ) ));
+    }
+
+    /**
+     * Get the tic size
+     * @return tic size in whole milliseconds
+     */
+    @Override
+    public int getTicSize () {
+        return (int) (state.get().ticSize / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Get the tic size
+     * @return tic size in nanoseconds
+     */
+    public long getTicSizeNanos () {
+        return state.get().ticSize;
+    }
+
+    /**
+     * Game time = real time - pause time.
+     * @return game time in whole tics
+     */
+    @Override
+    public long getTime() {
+        State current = state.get();
+        return current.getElapsedNanos( System.nanoTime() ) / current.ticSize;
+    }
+
+    /**
+     * Game time including the part of a tic that has passed
+     * @return game time in tics
+     */
+    public double getTicks() {
+        State current = state.get();
+        return (double) current.getElapsedNanos( System.nanoTime() ) / current.ticSize;
+    }
+
+    /**
+     * Game time in nanoseconds, not counting pauses
+     * @return nanoseconds since start
+     */
+    public long getElapsedNanos() {
+        return state.get().getElapsedNanos( System.nanoTime() );
+    }
+
+    /**
+     * Bring the timeline toward a given time, e.g. the server's time from clock sync.
+     * It never goes backwards: a small error is slewed out over time, a large one ahead of us is stepped over.
+     * @param elapsedNanos game time it should read now, in nanoseconds
+     */
+    public void synchronize(long elapsedNanos) {
+        long now = System.nanoTime();
+        State current;
+        State next;
+
+        do {
+            current = state.get();
+            long elapsed = current.getElapsedNanos( now );
+            long error = elapsedNanos - elapsed;
+
+            if (error > STEP_THRESHOLD) {
+                next = current.withSlew( now, elapsedNanos, 0 );
+            } else {
+                // replaces whatever was left of the last correction
+                next = current.withSlew( now, elapsed, error );
+            }
+        } while (!state.compareAndSet( current, next ));
+    }
+
+    // check to see if paused
+    public boolean isPaused() {
+        return state.get().paused;
+    }
+
+    /**
+     * Pause represents time that the game is paused.
+     */
+    @Override
+    public void pause () {
+        long now = System.nanoTime();  // get the current time
+        State current;
+
+        do {
+            current = state.get();
+
+            // if it is already paused
+            if (current.paused) {
+                return;
+            }
+        } while (!state.compareAndSet( current, new State(current.startTime, now, current.totalPauseTime, current.ticSize, true,
+                current.timeScale, current.scaledBase, current.rawBase, current.slew, current.slewBase) ));
+    }
+
+    /**
+     * Play the game again
+     * Set the total pause time.
+     */
+    @Override
+    public void play () {
+        long now = System.nanoTime();
+        State current;
+
+        do {
+            current = state.get();
+
+            // if you are not paused
+            if (!current.paused) {
+                return;
+            }
+        } while (!state.compareAndSet( current, new State(current.startTime, current.pausePoint,
+                current.totalPauseTime + (now - current.pausePoint), current.ticSize, false,
+                current.timeScale, current.scaledBase, current.rawBase, current.slew, current.slewBase) ));
+    }
+
+    public void record() {
+        recording = true;
+    }
+
+    public void replay() {
+        recording = false;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Set how fast the timeline runs, without jumping
+     * @param timeScale 1 for normal speed, 0.5 for half, 2 for double, and so on
+     */
+    @Override
+    public void setTimeScale(double timeScale) {
+        if (!(timeScale > 0) || Double.isInfinite( timeScale )) {
+            throw new IllegalArgumentException( "Time scale has to be positive" );
+        }
+
+        long now = System.nanoTime();
+        State current;
+
+        do {
+            current = state.get();
+        } while (!state.compareAndSet( current, current.withTimeScale( timeScale, now ) ));
+    }
+
+    /**
+     * @return how fast the timeline runs
+     */
+    @Override
+    public double getTimeScale() {
+        return state.get().timeScale;
+    }
+
+    /**
+     * Send how far along the timeline is, since nanoTime means nothing in another JVM
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        State current = state.get();
+        long now = System.nanoTime();
+
+        out.defaultWriteObject();
+        out.writeLong( now - current.startTime );
+        out.writeLong( current.paused ? now - current.pausePoint : 0 );
+        out.writeLong( current.totalPauseTime );
+        out.writeLong( current.ticSize );
+        out.writeBoolean( current.paused );
+        out.writeDouble( current.timeScale );
+        out.writeLong( current.scaledBase );
+        out.writeLong( current.rawBase );
+        out.writeLong( current.slew );
+        out.writeLong( current.slewBase );
+    }
+
+    /**
+     * Carry on from where the sender was, on this JVM's clock
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        long now = System.nanoTime();
+        long startTime = now - in.readLong();
+        long pausePoint = now - in.readLong();
+        long totalPauseTime = in.readLong();
+        long ticSize = in.readLong();
+        boolean paused = in.readBoolean();
+        double timeScale = in.readDouble();
+        long scaledBase = in.readLong();
+        long rawBase = in.readLong();
+        long slew = in.readLong();
+        long slewBase = in.readLong();
+
+        state = new AtomicReference<State>(new State(startTime, pausePoint, totalPauseTime, ticSize, paused, timeScale, scaledBase, rawBase,
+                slew, slewBase));
+    }
+
+    /**
+     * Everything about the timeline that can change, never changed in place (all in nanoseconds)
+     */
+    private static final class State {
+        final long startTime;
+        final long pausePoint;
+        final long totalPauseTime;
+        final long ticSize;
+        final boolean paused;
+
+        // speed, and the scaled and unscaled elapsed time when it last changed
+        final double timeScale;
+        final long scaledBase;
+        final long rawBase;
+
+        // sync error being slewed out, and the unscaled elapsed time when that started
+        final long slew;
+        final long slewBase;
+
+        State(long startTime, long pausePoint, long totalPauseTime, long ticSize, boolean paused,
+                double timeScale, long scaledBase, long rawBase, long slew, long slewBase) {
+            this.startTime = startTime;
+            this.pausePoint = pausePoint;
+            this.totalPauseTime = totalPauseTime;
+            this.ticSize = ticSize;
+            this.paused = paused;
+            this.timeScale = timeScale;
+            this.scaledBase = scaledBase;
+            this.rawBase = rawBase;
+            this.slew = slew;
+            this.slewBase = slewBase;
+        }
+
+        State withTicSize(long newTicSize) {
+            return new State(startTime, pausePoint, totalPauseTime, newTicSize, paused, timeScale, scaledBase, rawBase, slew, slewBase);
+        }
+
+        /**
+         * Carry on from a time now, slewing out a new correction from there
+         */
+        State withSlew(long now, long elapsed, long newSlew) {
+            long raw = getRawNanos( now );
+            return new State(startTime, pausePoint, totalPauseTime, ticSize, paused, timeScale, elapsed, raw, newSlew, raw);
+        }
+
+        /**
+         * Change speed, carrying on from where the timeline is now, with the rest of the correction
+         */
+        State withTimeScale(double newTimeScale, long now) {
+            long raw = getRawNanos( now );
+            return new State(startTime, pausePoint, totalPauseTime, ticSize, paused, newTimeScale,
+                    getElapsedNanos( now ), raw, slew - getCorrection( raw ), raw);
+        }
+
+        /**
+         * Nanoseconds since start at the time scale, not counting pauses
+         */
+        long getElapsedNanos(long now) {
+            long raw = getRawNanos( now );
+            return scaledBase + Math.round( (raw - rawBase) * timeScale ) + getCorrection( raw );
+        }
+
+        /**
+         * Part of the sync error worked off so far: SLEW_RATE of the time that has passed, up to the whole error.
+         * Since it is a fraction of the time scale, the timeline still moves forward while it slews back.
+         */
+        long getCorrection(long raw) {
+            if (slew == 0) {
+                return 0;
+            }
+
+            long done = Math.round( (raw - slewBase) * timeScale * SLEW_RATE );
+            return slew > 0 ? Math.min( done, slew ) : Math.max( -done, slew );
+        }
+
+        /**
+         * Nanoseconds since start as if the time scale was 1, not counting pauses
+         */
+        long getRawNanos(long now) {
+            long pauseTime = paused ? totalPauseTime + (now - pausePoint) : totalPauseTime;
+            return (now - startTime) - pauseTime;
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package time;
 
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * RealTimeline rpresents a Timeline anchored in real time.
  *
  * Meaning, it is anchored by System.currentTimeMillis().
  *
+ * Like LocalTimeline, its state is one immutable State swapped with compare-and-set, so the threads
+ * reading it never lock and never see half of a pause or tic size change.
+ * The time scale works the same way as LocalTimeline's.
+ *
  * @author jeremypark
  *
  */
@@ -16,19 +21,27 @@ public class RealTimeline implements Timeline, Serializable {
      */
     private static final long serialVersionUID = 1L;
 
-    private long startTime;
-    private long pausePoint = 0;
-    private long totalPauseTime = 0;
-    private int ticSize;
-    private boolean paused = false;
-    private boolean recording = false;
+    // everything that changes, swapped as a whole
+    private final AtomicReference<State> state = new AtomicReference<State>(new State(0, 0, 0, 1, false, 1, 0, 0));
+
+    private volatile boolean recording = false;
 
     /**
      * Start the timeline, anchored by real time
      */
     @Override
     public void start () {
-        startTime = System.currentTimeMillis();
+        long now = System.currentTimeMillis();
+        State current;
+        State started;
+
+        do {
+            current = state.get();
+            started = new State(now, current.pausePoint, current.totalPauseTime, current.ticSize, current.paused, current.timeScale, 0, 0);
+
+            // count from zero at the current time scale
+            started = started.withScaleBase( 0, started.getRawTicks( now ) );
+        } while (!state.compareAndSet( current, started ));
     }
 
     /**
@@ -36,11 +49,19 @@ public class RealTimeline implements Timeline, Serializable {
      */
     @Override
     public void setTicSize ( int ticSize ) {
-        this.ticSize = ticSize;
+        State current;
+
+        do {
+            current = state.get();
+        } while (!state.compareAndSet( current, current.withTicSize( ticSize ) ));
     }
 
     public void changeTicSize(double multiplier) {
-        ticSize *= multiplier;
+        State current;
+
+        do {
+            current = state.get();
+        } while (!state.compareAndSet( current, current.withTicSize( (int) (current.ticSize * multiplier) ) ));
     }
 
     /**
@@ -48,7 +69,7 @@ public class RealTimeline implements Timeline, Serializable {
      */
     @Override
     public int getTicSize () {
-        return ticSize;
+        return state.get().ticSize;
     }
 
     /**
@@ -57,26 +78,21 @@ public class RealTimeline implements Timeline, Serializable {
      */
     @Override
     public long getTime() {
-        return getRealTime() - getTotalPauseTime();
+        return state.get().getTime( System.currentTimeMillis() );
     }
 
     /**
      * Get the current time
      */
     public long getRealTime () {
-        return (System.currentTimeMillis() - startTime) / ticSize;
+        return state.get().getRealTime( System.currentTimeMillis() );
     }
 
     /**
      * Get current pause interval
      */
     public long getPauseInterval () {
-        if (!paused) {
-            return 0;
-        }
-
-        long currentTime = System.currentTimeMillis();
-        return (currentTime - pausePoint) / ticSize;
+        return state.get().getPauseInterval( System.currentTimeMillis() );
     }
 
     /**
@@ -84,17 +100,12 @@ public class RealTimeline implements Timeline, Serializable {
      * @return total pause time
      */
     public long getTotalPauseTime() {
-        if (paused) {
-            return (totalPauseTime + getPauseInterval());
-        }
-        else {
-            return (totalPauseTime);
-        }
+        return state.get().getTotalPauseTime( System.currentTimeMillis() );
     }
 
     // check to see if paused
     public boolean isPaused() {
-        return paused;
+        return state.get().paused;
     }
 
     /**
@@ -102,11 +113,18 @@ public class RealTimeline implements Timeline, Serializable {
      */
     @Override
     public void pause () {
-        // if it is not already paused
-        if (!paused) {
-            pausePoint = System.currentTimeMillis();  // get the current time
-            paused = true;
-        }
+        long now = System.currentTimeMillis();  // get the current time
+        State current;
+
+        do {
+            current = state.get();
+
+            // if it is already paused
+            if (current.paused) {
+                return;
+            }
+        } while (!state.compareAndSet( current, new State(current.startTime, now, current.totalPauseTime, current.ticSize, true,
+                current.timeScale, current.scaledBase, current.rawBase) ));
     }
 
     /**
@@ -115,41 +133,140 @@ public class RealTimeline implements Timeline, Serializable {
      */
     @Override
     public void play () {
-        // if you are paused
-        if (paused) {
-            totalPauseTime += getPauseInterval();
-            paused = false;
-        }
+        long now = System.currentTimeMillis();
+        State current;
+
+        do {
+            current = state.get();
+
+            // if you are not paused
+            if (!current.paused) {
+                return;
+            }
+        } while (!state.compareAndSet( current, new State(current.startTime, current.pausePoint,
+                current.totalPauseTime + current.getPauseInterval( now ), current.ticSize, false,
+                current.timeScale, current.scaledBase, current.rawBase) ));
     }
 
     public void record() {
-        if (!recording) {
-            recording = true;
-        }
+        recording = true;
     }
 
     public void replay() {
-        if (recording) {
-            recording = false;
-        }
+        recording = false;
     }
 
     public boolean isRecording() {
         return recording;
     }
 
-    // set half time
-    public void halfSpeed() {
-        // game server cannot create replays
+    /**
+     * Set how fast the timeline runs, without jumping
+     * @param timeScale 1 for normal speed, 0.5 for half, 2 for double, and so on
+     */
+    @Override
+    public void setTimeScale(double timeScale) {
+        if (!(timeScale > 0) || Double.isInfinite( timeScale )) {
+            throw new IllegalArgumentException( "Time scale has to be positive" );
+        }
+
+        long now = System.currentTimeMillis();
+        State current;
+
+        do {
+            current = state.get();
+        } while (!state.compareAndSet( current, current.withTimeScale( timeScale, now ) ));
     }
 
-    // set normal time
-    public void normalSpeed() {
-        // game server cannot create replays
+    /**
+     * @return how fast the timeline runs
+     */
+    @Override
+    public double getTimeScale() {
+        return state.get().timeScale;
     }
 
-    // set double time
-    public void doubleSpeed() {
-        // game server cannot create replays
+    /**
+     * Everything about the timeline that can change, never changed in place
+     */
+    private static final class State implements Serializable {
+        /**
+         *
+         */
+        private static final long serialVersionUID = 1L;
+
+        // milliseconds
+        final long startTime;
+        final long pausePoint;
+
+        // tics
+        final long totalPauseTime;
+        final int ticSize;
+        final boolean paused;
+
+        // speed, and the scaled and unscaled time when it last changed
+        final double timeScale;
+        final double scaledBase;
+        final double rawBase;
+
+        State(long startTime, long pausePoint, long totalPauseTime, int ticSize, boolean paused,
+                double timeScale, double scaledBase, double rawBase) {
+            this.startTime = startTime;
+            this.pausePoint = pausePoint;
+            this.totalPauseTime = totalPauseTime;
+            this.ticSize = ticSize;
+            this.paused = paused;
+            this.timeScale = timeScale;
+            this.scaledBase = scaledBase;
+            this.rawBase = rawBase;
+        }
+
+        State withTicSize(int newTicSize) {
+            return new State(startTime, pausePoint, totalPauseTime, newTicSize, paused, timeScale, scaledBase, rawBase);
+        }
+
+        State withScaleBase(double newScaledBase, double newRawBase) {
+            return new State(startTime, pausePoint, totalPauseTime, ticSize, paused, timeScale, newScaledBase, newRawBase);
+        }
+
+        /**
+         * Change speed, carrying on from where the timeline is now
+         */
+        State withTimeScale(double newTimeScale, long now) {
+            double raw = getRawTicks( now );
+            return new State(startTime, pausePoint, totalPauseTime, ticSize, paused, newTimeScale,
+                    scaledBase + (raw - rawBase) * timeScale, raw);
+        }
+
+        /**
+         * Game time in tics at the time scale
+         */
+        long getTime(long now) {
+            return (long) Math.floor( scaledBase + (getRawTicks( now ) - rawBase) * timeScale );
+        }
+
+        /**
+         * Game time in tics as if the time scale was 1, including the part of a tic that has passed
+         */
+        double getRawTicks(long now) {
+            double pauseInterval = paused ? (double) (now - pausePoint) / ticSize : 0;
+            return (double) (now - startTime) / ticSize - totalPauseTime - pauseInterval;
+        }
+
+        long getRealTime(long now) {
+            return (now - startTime) / ticSize;
+        }
+
+        long getPauseInterval(long now) {
+            if (!paused) {
+                return 0;
+            }
+
+            return (now - pausePoint) / ticSize;
+        }
+
+        long getTotalPauseTime(long now) {
+            return totalPauseTime + getPauseInterval( now );
+        }
     }
 }
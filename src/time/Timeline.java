@@ -32,12 +32,9 @@ public interface Timeline {
     // see if the timeline is paused
     public boolean isPaused();
 
-    // set half time
-    public void halfSpeed();
+    // set how fast the timeline runs (1 is normal speed), carrying on from the current time
+    public void setTimeScale(double timeScale);
 
-    // set normal time
-    public void normalSpeed();
-
-    // set double time
-    public void doubleSpeed();
+    // get how fast the timeline runs
+    public double getTimeScale();
 }